@@ -0,0 +1,83 @@
+package com.springlearn.Springboot.tutorial.benchmarks;
+
+import com.springlearn.Springboot.tutorial.controller.DepartmentController;
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.error.CustomRestExceptionHandler;
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import java.util.concurrent.TimeUnit;
+
+//the error paths of CustomRestExceptionHandler - from the exception to the ApiError response entity
+//the version mismatch benchmark also creates the exception, like the service does on every conflict,
+//so the cost of filling in the stack trace is part of the result
+//not found uses the shared stackless exception and the pre-serialized body (NotFoundBenchmark compares both ways)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionHandlerBenchmark {
+
+    private CustomRestExceptionHandler exceptionHandler;
+    private WebRequest request;
+    private MethodArgumentNotValidException invalidBody;
+    private ConstraintViolationException invalidParameter;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        exceptionHandler = new CustomRestExceptionHandler(Jackson2ObjectMapperBuilder.json().build());
+        request = new ServletWebRequest(new MockHttpServletRequest("GET", "/departments/1"));
+
+        //the @Valid @RequestBody of POST /departments with two invalid fields
+        Department department = Fixtures.department(1);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(department, "department");
+        bindingResult.addError(new FieldError("department", "departmentName", "Letters only"));
+        bindingResult.addError(new FieldError("department", "departmentCode", "Maximum length of 6 only"));
+        MethodParameter parameter = new MethodParameter(
+                DepartmentController.class.getMethod("saveDepartment", Department.class), 0);
+        invalidBody = new MethodArgumentNotValidException(parameter, bindingResult);
+
+        try(ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            Department invalid = Fixtures.department(1);
+            invalid.setDepartmentName("12345");
+            invalidParameter = new ConstraintViolationException(validatorFactory.getValidator().validate(invalid));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> invalidRequestBody() throws Exception {
+        return exceptionHandler.handleException(invalidBody, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> invalidRequestParameter() {
+        return exceptionHandler.handleConstraintViolation(invalidParameter, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> departmentNotFound() {
+        return exceptionHandler.handleDepartmentNotFoundException(DepartmentNotFoundException.notFound(), request);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> departmentVersionMismatch() {
+        return exceptionHandler.handleDepartmentVersionMismatch(
+                new DepartmentVersionMismatchException("Department Version does not match"), request);
+    }
+
+}
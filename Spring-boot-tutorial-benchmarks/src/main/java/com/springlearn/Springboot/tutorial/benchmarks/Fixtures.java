@@ -0,0 +1,31 @@
+package com.springlearn.Springboot.tutorial.benchmarks;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+
+//test data shared by the benchmarks
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static Department department(int i) {
+        return Department.builder()
+                .departmentId((long) i + 1)
+                .departmentName("Department" + letters(i))
+                .departmentAddress(i + " Benchmark Street")
+                .departmentCode("D-" + (i % 1000))
+                .version(1L)
+                .build();
+    }
+
+    //department names are letters only
+    static String letters(int i) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('a' + i % 26));
+            i /= 26;
+        } while(i > 0);
+        return name.toString();
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.springlearn.Springboot.tutorial.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.entity.ApiError;
+import com.springlearn.Springboot.tutorial.entity.Department;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//jackson (de)serialization of the request/response bodies
+//the object mapper is built like spring boot builds it (java time module, no failing on unknown properties)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    private static final TypeReference<List<Department>> DEPARTMENT_LIST = new TypeReference<List<Department>>() {
+    };
+
+    @Param({"100"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private Department department;
+    private List<Department> departments;
+    private ApiError apiError;
+    private String departmentJson;
+    private String departmentListJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        department = Fixtures.department(1);
+        departments = new ArrayList<>(listSize);
+        for(int i = 0; i < listSize; i++) {
+            departments.add(Fixtures.department(i));
+        }
+        apiError = new ApiError(HttpStatus.NOT_FOUND, "uri=/departments/1", "Department Not Found");
+        departmentJson = objectMapper.writeValueAsString(department);
+        departmentListJson = objectMapper.writeValueAsString(departments);
+    }
+
+    @Benchmark
+    public String serializeDepartment() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(department);
+    }
+
+    @Benchmark
+    public Department deserializeDepartment() throws JsonProcessingException {
+        return objectMapper.readValue(departmentJson, Department.class);
+    }
+
+    @Benchmark
+    public String serializeDepartmentList() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(departments);
+    }
+
+    @Benchmark
+    public List<Department> deserializeDepartmentList() throws JsonProcessingException {
+        return objectMapper.readValue(departmentListJson, DEPARTMENT_LIST);
+    }
+
+    @Benchmark
+    public String serializeApiError() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(apiError);
+    }
+
+}
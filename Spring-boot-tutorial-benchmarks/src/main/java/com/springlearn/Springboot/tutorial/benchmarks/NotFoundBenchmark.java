@@ -0,0 +1,76 @@
+package com.springlearn.Springboot.tutorial.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.entity.ApiError;
+import com.springlearn.Springboot.tutorial.error.CustomRestExceptionHandler;
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+//a miss from GET /departments/{id}: the service throws, the handler turns it into the 404 body bytes
+//  newExceptionAndApiError      -> before: new exception (stack trace filled in), new ApiError, serialized by jackson
+//  sharedExceptionAndCachedBody -> now: the shared stackless exception, the pre-serialized body with the uri copied in
+//the exception is thrown from stackDepth frames down, a request reaches the service ~100 frames below the servlet
+//run with the gc profiler (BenchmarkRunner adds it) to compare gc.alloc.rate.norm - bytes allocated per request
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotFoundBenchmark {
+
+    @Param({"100"})
+    private int stackDepth;
+
+    private ObjectMapper objectMapper;
+    private CustomRestExceptionHandler exceptionHandler;
+    private WebRequest request;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        exceptionHandler = new CustomRestExceptionHandler(objectMapper);
+        request = new ServletWebRequest(new MockHttpServletRequest("GET", "/departments/1"));
+    }
+
+    @Benchmark
+    public byte[] newExceptionAndApiError() throws JsonProcessingException {
+        try {
+            throwFrom(stackDepth, false);
+            throw new IllegalStateException();
+        } catch (DepartmentNotFoundException ex) {
+            ApiError apiError = new ApiError(HttpStatus.NOT_FOUND, request.getDescription(false), ex.getMessage());
+            return objectMapper.writeValueAsBytes(apiError);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> sharedExceptionAndCachedBody() {
+        try {
+            throwFrom(stackDepth, true);
+            throw new IllegalStateException();
+        } catch (DepartmentNotFoundException ex) {
+            return exceptionHandler.handleDepartmentNotFoundException(ex, request);
+        }
+    }
+
+    private static void throwFrom(int depth, boolean shared) throws DepartmentNotFoundException {
+        if(depth > 0) {
+            throwFrom(depth - 1, shared);
+            return;
+        }
+        throw shared
+                ? DepartmentNotFoundException.notFound()
+                : new DepartmentNotFoundException(DepartmentNotFoundException.MESSAGE);
+    }
+
+}
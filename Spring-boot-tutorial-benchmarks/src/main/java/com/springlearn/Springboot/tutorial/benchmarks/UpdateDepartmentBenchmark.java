@@ -0,0 +1,107 @@
+package com.springlearn.Springboot.tutorial.benchmarks;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import com.springlearn.Springboot.tutorial.service.DepartmentExistenceFilter;
+import com.springlearn.Springboot.tutorial.service.DepartmentServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//DepartmentServiceImpl.updateDepartment without spring and without a database
+//the merge of the given fields itself happens in the UPDATE statement, what is left in java is
+//picking the fields to update (null/blank checks) and turning an empty result into the right exception
+//the repository is a stub that returns a fixed result, so only the service logic is measured
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UpdateDepartmentBenchmark {
+
+    private static final long FOUND_ID = 1L;
+    private static final long CURRENT_VERSION = 1L;
+    private static final long STALE_VERSION = 0L;
+
+    private DepartmentServiceImpl departmentService;
+    private UpdatableDepartment allFields;
+    private UpdatableDepartment oneField;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        Department updated = Fixtures.department(0);
+        DepartmentRepository repository = (DepartmentRepository) Proxy.newProxyInstance(
+                DepartmentRepository.class.getClassLoader(),
+                new Class<?>[]{DepartmentRepository.class},
+                (proxy, method, args) -> {
+                    switch(method.getName()) {
+                        case "updateDepartmentFields":
+                            Long departmentId = (Long) args[0];
+                            Long expectedVersion = (Long) args[1];
+                            boolean hit = departmentId == FOUND_ID
+                                    && (expectedVersion == null || expectedVersion == CURRENT_VERSION);
+                            return hit ? Optional.of(updated) : Optional.empty();
+                        case "existsById":
+                            return args[0].equals(FOUND_ID);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        departmentService = new DepartmentServiceImpl();
+        inject("departmentRepository", repository);
+        //not built - updates only take the lock, like before the first build at startup
+        inject("departmentExistenceFilter", new DepartmentExistenceFilter());
+
+        allFields = UpdatableDepartment.builder()
+                .departmentName("Science").departmentAddress("Second Street").departmentCode("SC-001").build();
+        oneField = UpdatableDepartment.builder().departmentName("").departmentCode("SC-002").build();
+    }
+
+    @Benchmark
+    public Department updateAllFields() throws DepartmentNotFoundException {
+        return departmentService.updateDepartment(FOUND_ID, allFields);
+    }
+
+    @Benchmark
+    public Department updateOneField() throws DepartmentNotFoundException {
+        return departmentService.updateDepartment(FOUND_ID, oneField);
+    }
+
+    @Benchmark
+    public Department updateWithVersion() throws DepartmentNotFoundException {
+        return departmentService.updateDepartment(FOUND_ID, allFields, CURRENT_VERSION);
+    }
+
+    @Benchmark
+    public Object updateNotFound() {
+        try {
+            return departmentService.updateDepartment(-1L, allFields);
+        } catch(DepartmentNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object updateStaleVersion() throws DepartmentNotFoundException {
+        try {
+            return departmentService.updateDepartment(FOUND_ID, allFields, STALE_VERSION);
+        } catch(DepartmentVersionMismatchException e) {
+            return e;
+        }
+    }
+
+    private void inject(String name, Object value) throws ReflectiveOperationException {
+        Field field = DepartmentServiceImpl.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(departmentService, value);
+    }
+
+}
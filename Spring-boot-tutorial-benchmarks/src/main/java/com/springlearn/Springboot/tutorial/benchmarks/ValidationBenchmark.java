@@ -0,0 +1,67 @@
+package com.springlearn.Springboot.tutorial.benchmarks;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//bean validation of the request bodies (@Valid), valid and invalid
+//the invalid cases fail the @Pattern letters-only regex, which also builds the violation messages
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Department validDepartment;
+    private Department invalidDepartment;
+    private UpdatableDepartment validUpdate;
+    private UpdatableDepartment invalidUpdate;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validDepartment = Fixtures.department(1);
+        invalidDepartment = Fixtures.department(1);
+        invalidDepartment.setDepartmentName("12345");
+        validUpdate = UpdatableDepartment.builder().departmentName("Science").departmentCode("SC-001").build();
+        invalidUpdate = UpdatableDepartment.builder().departmentName("12345").departmentCode("TOO-LONG-1").build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Department>> validDepartment() {
+        return validator.validate(validDepartment);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Department>> invalidDepartment() {
+        return validator.validate(invalidDepartment);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UpdatableDepartment>> validUpdatableDepartment() {
+        return validator.validate(validUpdate);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UpdatableDepartment>> invalidUpdatableDepartment() {
+        return validator.validate(invalidUpdate);
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.springlearn.Springboot.tutorial.benchmarks.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+//the routes of DepartmentController the load test drives
+//the name is the tag of the endpoint in the histogram logs and in --mix
+enum Endpoint {
+
+    LIST("list") {
+        @Override
+        HttpRequest.Builder builder(URI base, SeededDepartments departments) {
+            return HttpRequest.newBuilder(base.resolve("/departments")).GET();
+        }
+    },
+    BY_ID("byId") {
+        @Override
+        HttpRequest.Builder builder(URI base, SeededDepartments departments) {
+            return HttpRequest.newBuilder(base.resolve("/departments/" + departments.randomId())).GET();
+        }
+    },
+    NAME_ALL("nameAll") {
+        @Override
+        HttpRequest.Builder builder(URI base, SeededDepartments departments) {
+            return HttpRequest.newBuilder(base.resolve("/departments/name/all/" + departments.randomName())).GET();
+        }
+    },
+    NAME_ONE("nameOne") {
+        @Override
+        HttpRequest.Builder builder(URI base, SeededDepartments departments) {
+            return HttpRequest.newBuilder(base.resolve("/departments/name/one/" + departments.randomName())).GET();
+        }
+    },
+    //only the address changes, the names stay unique and keep matching the name lookups
+    UPDATE("update") {
+        @Override
+        HttpRequest.Builder builder(URI base, SeededDepartments departments) {
+            String body = "{\"departmentAddress\":\"" + ThreadLocalRandom.current().nextInt(1000) + " Load Street\"}";
+            return HttpRequest.newBuilder(base.resolve("/departments/" + departments.randomId()))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body));
+        }
+    },
+    //every delete takes a department of its own, reads never see them
+    DELETE("delete") {
+        @Override
+        HttpRequest.Builder builder(URI base, SeededDepartments departments) {
+            return HttpRequest.newBuilder(base.resolve("/departments/" + departments.nextDeletableId())).DELETE();
+        }
+    };
+
+    //a request that takes longer than this is recorded as an error
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String tag;
+
+    Endpoint(String tag) {
+        this.tag = tag;
+    }
+
+    String tag() {
+        return tag;
+    }
+
+    HttpRequest request(URI base, SeededDepartments departments) {
+        return builder(base, departments).timeout(TIMEOUT).build();
+    }
+
+    abstract HttpRequest.Builder builder(URI base, SeededDepartments departments);
+
+    static Endpoint byName(String tag) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.tag.equals(tag))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint " + tag));
+    }
+
+}
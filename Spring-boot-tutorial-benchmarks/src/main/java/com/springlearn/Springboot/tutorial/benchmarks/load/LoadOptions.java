@@ -0,0 +1,90 @@
+package com.springlearn.Springboot.tutorial.benchmarks.load;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//command line of the load test, every option is --name=value
+//  --seed=10000            departments the reads and updates run against (the rows deleted by the run are seeded on top)
+//  --rates=200,400,800     requests per second, one step per rate - the highest rate that keeps up is the max throughput
+//  --duration-seconds=30   length of every step
+//  --warmup-seconds=10     unrecorded load at the first rate before the steps
+//  --mix=list=1,byId=50,nameAll=10,nameOne=19,update=15,delete=5   relative weights of the endpoints (read/write mix)
+//  --p99-limit-ms=100      a step above this p99 (any endpoint) does not count as keeping up, no limit by default
+//  --profile=qa            spring profile (database) of the app that is started
+//  --url=http://host:8082  load an app that is already running instead of starting one
+//  --output=target/load/<time>   directory for the histogram logs
+class LoadOptions {
+
+    private static final String DEFAULT_MIX = "list=1,byId=50,nameAll=10,nameOne=19,update=15,delete=5";
+
+    final int seed;
+    final List<Integer> rates;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final Map<Endpoint, Integer> mix;
+    final Long p99LimitMillis;
+    final String profile;
+    final String url;
+    final Path output;
+
+    private LoadOptions(Map<String, String> options) {
+        seed = Integer.parseInt(options.getOrDefault("seed", "10000"));
+        rates = new ArrayList<>();
+        for(String rate : options.getOrDefault("rates", "200").split(",")) {
+            rates.add(Integer.parseInt(rate.trim()));
+        }
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration-seconds", "30"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-seconds", "10"));
+        mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        p99LimitMillis = options.containsKey("p99-limit-ms") ? Long.valueOf(options.get("p99-limit-ms")) : null;
+        profile = options.getOrDefault("profile", "qa");
+        url = options.get("url");
+        output = Paths.get(options.getOrDefault("output",
+                "target/load/" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))));
+    }
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for(String arg : args) {
+            if(!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options are --name=value, got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadOptions(options);
+    }
+
+    //share of the requests that go to the endpoint, 0 to 1
+    double share(Endpoint endpoint) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        return (double) mix.getOrDefault(endpoint, 0) / total;
+    }
+
+    //every DELETE needs a department of its own, seed enough for the whole run
+    //(+20% and 100 more, the endpoints are picked at random so short runs can be well above the average)
+    int deletableSeed() {
+        long requests = (long) rates.get(0) * warmupSeconds;
+        for(int rate : rates) {
+            requests += (long) rate * durationSeconds;
+        }
+        return (int) Math.ceil(requests * share(Endpoint.DELETE) * 1.2) + 100;
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for(String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.split("=");
+            weights.put(Endpoint.byName(nameAndWeight[0].trim()), Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+}
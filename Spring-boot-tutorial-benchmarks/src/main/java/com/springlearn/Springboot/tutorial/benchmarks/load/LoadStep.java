@@ -0,0 +1,162 @@
+package com.springlearn.Springboot.tutorial.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+//one step of the load test - a fixed arrival rate for a fixed time (open model)
+//requests are sent when they are due, whether the earlier ones have answered or not, and the latency of a request
+//is measured from the time it was due, not from the time it was sent - a stalled server shows up as latency
+//instead of as fewer requests (no coordinated omission)
+//latencies are in microseconds, one interval histogram per endpoint per second in the log
+class LoadStep {
+
+    private static final long LOG_INTERVAL_MILLIS = 1000;
+
+    private final HttpClient client;
+    private final URI base;
+    private final SeededDepartments departments;
+    private final LoadOptions options;
+    private final int rate;
+
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Histogram> totals = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final Endpoint[] schedule;
+
+    private long elapsedNanos;
+
+    LoadStep(HttpClient client, URI base, SeededDepartments departments, LoadOptions options, int rate) {
+        this.client = client;
+        this.base = base;
+        this.departments = departments;
+        this.options = options;
+        this.rate = rate;
+        for(Endpoint endpoint : options.mix.keySet()) {
+            recorders.put(endpoint, new Recorder(3));
+            totals.put(endpoint, new Histogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+        //weighted pick of the endpoint: one slot per unit of weight
+        List<Endpoint> slots = new ArrayList<>();
+        options.mix.forEach((endpoint, weight) -> {
+            for(int i = 0; i < weight; i++) {
+                slots.add(endpoint);
+            }
+        });
+        schedule = slots.toArray(new Endpoint[0]);
+    }
+
+    //runs the step, the histograms go to `log` (null for the warmup)
+    void run(int seconds, Path log) throws FileNotFoundException {
+        ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor();
+        HistogramLogWriter writer = null;
+        if(log != null) {
+            writer = new HistogramLogWriter(log.toFile());
+            long now = System.currentTimeMillis();
+            writer.outputComment("department load test, " + rate + " requests/sec");
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(now);
+            writer.setBaseTime(now);
+            writer.outputLegend();
+            HistogramLogWriter intervals = writer;
+            logger.scheduleAtFixedRate(() -> logIntervals(intervals),
+                    LOG_INTERVAL_MILLIS, LOG_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long requests = (long) rate * seconds;
+        List<CompletableFuture<?>> responses = new ArrayList<>((int) requests);
+        long start = System.nanoTime();
+
+        for(long i = 0; i < requests; i++) {
+            long due = start + i * interval;
+            long wait;
+            while((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+            responses.add(client.sendAsync(endpoint.request(base, departments), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        recorders.get(endpoint).recordValue((System.nanoTime() - due) / 1000);
+                        if(error != null || response.statusCode() >= 300) {
+                            errors.get(endpoint).increment();
+                        }
+                    }));
+        }
+        //the step is over once the last request has answered
+        responses.forEach(response -> response.handle((ignored, error) -> null).join());
+        elapsedNanos = System.nanoTime() - start;
+
+        logger.shutdownNow();
+        if(writer != null) {
+            logIntervals(writer);
+            writer.close();
+        }
+    }
+
+    //achieved the rate (95%) with (almost) no errors and within the p99 limit
+    boolean keptUp() {
+        long count = totals.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        long failed = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        boolean withinLimit = options.p99LimitMillis == null || totals.values().stream()
+                .allMatch(total -> total.getValueAtPercentile(99) <= options.p99LimitMillis * 1000);
+        return throughput(count) >= rate * 0.95 && failed <= count * 0.01 && withinLimit;
+    }
+
+    void writeSummary(PrintStream out) {
+        out.printf("%d requests/sec target, %.0f requests/sec achieved%n", rate,
+                throughput(totals.values().stream().mapToLong(Histogram::getTotalCount).sum()));
+        out.printf("%-8s %8s %9s %9s %9s %9s %9s %9s %7s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        totals.forEach((endpoint, total) -> out.printf("%-8s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                endpoint.tag(), total.getTotalCount(), throughput(total.getTotalCount()),
+                total.getValueAtPercentile(50) / 1000.0, total.getValueAtPercentile(90) / 1000.0,
+                total.getValueAtPercentile(99) / 1000.0, total.getValueAtPercentile(99.9) / 1000.0,
+                total.getMaxValue() / 1000.0, errors.get(endpoint).sum()));
+    }
+
+    //full percentile distribution of every endpoint, e.g. 400rps-byId.hgrm
+    //(the format of https://hdrhistogram.github.io/HdrHistogram/plotFiles.html, in milliseconds)
+    void writePercentiles(Path directory, String prefix) throws FileNotFoundException {
+        for(Map.Entry<Endpoint, Histogram> total : totals.entrySet()) {
+            try(PrintStream out = new PrintStream(
+                    directory.resolve(prefix + "-" + total.getKey().tag() + ".hgrm").toFile())) {
+                total.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private double throughput(long count) {
+        return count / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    private synchronized void logIntervals(HistogramLogWriter writer) {
+        recorders.forEach((endpoint, recorder) -> {
+            Histogram interval = recorder.getIntervalHistogram();
+            totals.get(endpoint).add(interval);
+            interval.setTag(endpoint.tag());
+            writer.outputIntervalHistogram(interval);
+        });
+    }
+
+}
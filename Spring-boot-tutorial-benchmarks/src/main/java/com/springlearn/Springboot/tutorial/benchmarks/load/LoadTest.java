@@ -0,0 +1,107 @@
+package com.springlearn.Springboot.tutorial.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.SpringBootTutorialApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//end-to-end load test of the department api, see LoadOptions for the command line
+//  cd Spring-boot-tutorial && mvn install -DskipTests
+//  cd ../Spring-boot-tutorial-benchmarks && mvn compile exec:exec -Dload.args="--seed=20000 --rates=200,400,800"
+//starts the app (server.port=0) against the database of the profile, seeds it, runs one step per rate
+//and deletes the seeded departments again
+//per step the output directory gets <rate>rps.hlog (interval histograms tagged by endpoint) and
+//<rate>rps-<endpoint>.hgrm (percentiles), plus summary.txt for the whole run
+//two runs are compared with the .hgrm files or with HdrHistogram's HistogramLogProcessor, e.g.
+//  java -cp HdrHistogram.jar org.HdrHistogram.HistogramLogProcessor -i 400rps.hlog -tag byId -outputValueUnitRatio 1000
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        ConfigurableApplicationContext context = null;
+        URI base;
+        if(options.url == null) {
+            context = startApplication(options.profile);
+            base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+        } else {
+            base = URI.create(options.url);
+        }
+
+        ExecutorService responses = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(responses)
+                .build();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        SeededDepartments departments = new SeededDepartments(client, base, objectMapper);
+
+        try {
+            System.out.printf("seeding %d departments (+%d to delete) at %s%n",
+                    options.seed, options.deletableSeed(), base);
+            departments.seed(options.seed, options.deletableSeed());
+            run(client, base, departments, options);
+        } finally {
+            try {
+                departments.delete();
+            } finally {
+                responses.shutdown();
+                if(context != null) {
+                    context.close();
+                }
+            }
+        }
+    }
+
+    private static void run(HttpClient client, URI base, SeededDepartments departments, LoadOptions options)
+            throws IOException {
+        Files.createDirectories(options.output);
+        if(options.warmupSeconds > 0) {
+            System.out.printf("warmup, %d seconds at %d requests/sec%n", options.warmupSeconds, options.rates.get(0));
+            new LoadStep(client, base, departments, options, options.rates.get(0)).run(options.warmupSeconds, null);
+        }
+
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(summary, true);
+        Integer maxThroughput = null;
+        for(int rate : options.rates) {
+            System.out.printf("%d requests/sec for %d seconds%n", rate, options.durationSeconds);
+            LoadStep step = new LoadStep(client, base, departments, options, rate);
+            step.run(options.durationSeconds, options.output.resolve(rate + "rps.hlog"));
+            step.writePercentiles(options.output, rate + "rps");
+            step.writeSummary(out);
+            out.println();
+            if(step.keptUp()) {
+                maxThroughput = rate;
+            }
+        }
+        out.println(maxThroughput == null
+                ? "max throughput: below " + options.rates.get(0) + " requests/sec"
+                : "max throughput: " + maxThroughput + " requests/sec (highest rate that kept up)");
+
+        Files.write(options.output.resolve("summary.txt"), summary.toByteArray());
+        System.out.print(summary);
+        System.out.println("histograms in " + options.output.toAbsolutePath());
+    }
+
+    //the controller logs every request and the sql is printed in most profiles - both are off for the load test
+    private static ConfigurableApplicationContext startApplication(String profile) {
+        return new SpringApplicationBuilder(SpringBootTutorialApplication.class)
+                .run("--server.port=0",
+                        "--spring.profiles.active=" + profile,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.springlearn=WARN");
+    }
+
+}
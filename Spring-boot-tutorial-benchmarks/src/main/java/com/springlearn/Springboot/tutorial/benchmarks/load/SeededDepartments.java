@@ -0,0 +1,119 @@
+package com.springlearn.Springboot.tutorial.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.entity.Department;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+//the departments a load test run works on, created through the api before the run and deleted after it
+//names are letters only and start with a random prefix, so runs never clash with each other or with existing data
+class SeededDepartments {
+
+    private static final int SAVE_BATCH = 1000;
+    //ids go into the query string, which has to stay below tomcat's 8KB header limit
+    private static final int DELETE_BATCH = 500;
+
+    private final HttpClient client;
+    private final URI base;
+    private final ObjectMapper objectMapper;
+
+    private final List<Long> ids = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Queue<Long> deletableIds = new ConcurrentLinkedQueue<>();
+
+    SeededDepartments(HttpClient client, URI base, ObjectMapper objectMapper) {
+        this.client = client;
+        this.base = base;
+        this.objectMapper = objectMapper;
+    }
+
+    //`count` departments for the reads and updates, `deletable` more for the deletes
+    void seed(int count, int deletable) throws IOException, InterruptedException {
+        String prefix = "Load" + letters(ThreadLocalRandom.current().nextInt(26 * 26 * 26 * 26));
+        List<Department> batch = new ArrayList<>(SAVE_BATCH);
+        for(int i = 0; i < count + deletable; i++) {
+            batch.add(Department.builder()
+                    .departmentName(prefix + letters(i))
+                    .departmentAddress(i + " Load Street")
+                    .departmentCode("L" + (i % 100000))
+                    .build());
+            if(batch.size() == SAVE_BATCH || i == count + deletable - 1) {
+                for(Department saved : save(batch)) {
+                    if(ids.size() < count) {
+                        ids.add(saved.getDepartmentId());
+                        names.add(saved.getDepartmentName());
+                    } else {
+                        deletableIds.add(saved.getDepartmentId());
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    String randomName() {
+        return names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    }
+
+    //-1 (a 404) once the deletable departments are used up
+    Long nextDeletableId() {
+        Long id = deletableIds.poll();
+        return id == null ? -1L : id;
+    }
+
+    //deletes whatever is left of the seeded departments
+    void delete() throws IOException, InterruptedException {
+        List<Long> remaining = new ArrayList<>(ids);
+        remaining.addAll(deletableIds);
+        for(int from = 0; from < remaining.size(); from += DELETE_BATCH) {
+            String batch = remaining.subList(from, Math.min(from + DELETE_BATCH, remaining.size())).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(","));
+            send(HttpRequest.newBuilder(base.resolve("/departments?ids=" + batch)).DELETE().build());
+        }
+        ids.clear();
+        names.clear();
+        deletableIds.clear();
+    }
+
+    private Department[] save(List<Department> departments) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/departments/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(departments)))
+                .build();
+        return objectMapper.readValue(send(request), Department[].class);
+    }
+
+    private byte[] send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException(request.method() + " " + request.uri().getPath()
+                    + " failed with " + response.statusCode() + ": " + new String(response.body()));
+        }
+        return response.body();
+    }
+
+    private static String letters(int i) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('a' + i % 26));
+            i /= 26;
+        } while(i > 0);
+        return name.toString();
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+//caches are created by spring boot from spring.cache.* in application.yml (caffeine, size + ttl bound)
+//the names are kept here so the @Cacheable/@CachePut/@CacheEvict annotations do not repeat string literals
+//the cache advice runs outside the @Transactional one (higher precedence than the transaction advice's lowest):
+//a cache hit does not start a transaction, and a write is only put into the cache once it is committed
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    //department by departmentId
+    public static final String DEPARTMENTS = "departments";
+
+    //department by exact departmentName (fetchOneDepartmentByName)
+    public static final String DEPARTMENTS_BY_NAME = "departmentsByName";
+
+}
@@ -0,0 +1,48 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.slf4j.MDC;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+//request scoped correlation id
+//the X-Request-Id of the caller is used (or a new one is made up), sent back in the response and put into the MDC,
+//so every log line of the request carries it (requestId field of the json logs)
+//the MDC also gets the endpoint (method + path) for the per endpoint log sampling
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String REQUEST_ID = "requestId";
+    public static final String ENDPOINT = "endpoint";
+
+    //a longer id from a client is cut, it ends up in every log line
+    private static final int MAX_LENGTH = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER);
+        if(!StringUtils.hasText(requestId)) {
+            requestId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        } else if(requestId.length() > MAX_LENGTH) {
+            requestId = requestId.substring(0, MAX_LENGTH);
+        }
+
+        response.setHeader(HEADER, requestId);
+        MDC.put(REQUEST_ID, requestId);
+        MDC.put(ENDPOINT, request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(REQUEST_ID);
+            MDC.remove(ENDPOINT);
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//logback's async appender, lossy instead of blocking (neverBlock), that counts what it drops
+//  - INFO and below are dropped once less than discardingThreshold places are left in the queue
+//  - everything is dropped when the queue is full
+//the count is published as the logback.events.dropped metric (LoggingConfig)
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    public CountingAsyncAppender() {
+        setNeverBlock(true);
+    }
+
+    public static long dropped() {
+        return DROPPED.sum();
+    }
+
+    //the same checks the base class makes before queueing, done first so a dropped event is counted
+    //(the base class drops silently)
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if((remaining < getDiscardingThreshold() && isDiscardable(event)) || remaining == 0) {
+            DROPPED.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+//datasources
+//primary -> spring.datasource (writes, and reads when there is no healthy replica)
+//replicas -> replica.datasources (reads inside @Transactional(readOnly = true))
+//e.g. locally: a second postgres on 5433 (or any database with the same schema standing in for a replica)
+//replica.datasources[0].url: jdbc:postgresql://localhost:5433/tutorialdatabase
+//the pools are not beans of their own - spring boot would then try to initialize every one of them,
+//there is exactly one DataSource bean and it owns the pools behind it
+//spring boot only binds pool metrics to a HikariDataSource bean, so the pools register their metrics
+//(hikaricp.connections.acquire etc., tagged with the pool name) themselves
+//no jdbc datasource in the reactive profile, the database is reached through r2dbc there
+@Configuration
+@Profile("!reactive")
+@EnableScheduling
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    //the datasource JPA, flyway and the rest of the application use
+    //the lazy proxy only takes a real connection at the first statement - by then the transaction
+    //has marked itself read only, so the routing can pick a replica
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, ReplicaProperties replicaProperties) {
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource(properties),
+                replicaDataSources(properties, replicaProperties), replicaProperties.getMaxLag());
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${replica.check-interval-millis:5000}")
+    public void checkReplicas() {
+        if(Objects.nonNull(routingDataSource)) {
+            routingDataSource.checkReplicas();
+        }
+    }
+
+    @PreDestroy
+    public void closeDataSources() throws IOException {
+        if(Objects.nonNull(routingDataSource)) {
+            routingDataSource.close();
+        }
+    }
+
+    //same pool spring boot would create from spring.datasource and spring.datasource.hikari
+    private HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if(Objects.isNull(primary.getPoolName())) {
+            primary.setPoolName("primary");
+        }
+        meterRegistry.ifAvailable(registry -> primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return primary;
+    }
+
+    private Map<String, DataSource> replicaDataSources(DataSourceProperties properties, ReplicaProperties replicaProperties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaProperties.Replica> datasources = replicaProperties.getDatasources();
+
+        for(int i = 0; i < datasources.size(); i++) {
+            ReplicaProperties.Replica replica = datasources.get(i);
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (i + 1));
+            config.setDriverClassName(properties.determineDriverClassName());
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(Objects.nonNull(replica.getUsername()) ? replica.getUsername() : properties.determineUsername());
+            config.setPassword(Objects.nonNull(replica.getPassword()) ? replica.getPassword() : properties.determinePassword());
+            config.setMaximumPoolSize(replica.getMaximumPoolSize());
+            config.setConnectionTimeout(replicaProperties.getConnectionTimeout().toMillis());
+            //a replica that is down at startup must not stop the application, it is just skipped
+            config.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+        return replicas;
+    }
+
+}
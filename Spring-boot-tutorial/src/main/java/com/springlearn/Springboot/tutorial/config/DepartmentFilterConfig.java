@@ -0,0 +1,20 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import com.springlearn.Springboot.tutorial.service.DepartmentExistenceFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//existence filter in front of the jpa lookups (see DepartmentExistenceFilter) and its actuator endpoint
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(DepartmentFilterProperties.class)
+public class DepartmentFilterConfig {
+
+    @Bean
+    public DepartmentFilterEndpoint departmentFilterEndpoint(DepartmentExistenceFilter departmentExistenceFilter) {
+        return new DepartmentFilterEndpoint(departmentExistenceFilter);
+    }
+
+}
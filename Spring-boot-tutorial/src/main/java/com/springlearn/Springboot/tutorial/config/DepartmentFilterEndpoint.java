@@ -0,0 +1,38 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import com.springlearn.Springboot.tutorial.service.DepartmentExistenceFilter;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.Map;
+
+//GET /actuator/departmentfilter -> the bloom filters of department ids and names
+//  ids, names         size (bits/bytes, hash functions), keys put in them, configured and estimated
+//                     false positive rate (the estimate grows once more keys than expected were put)
+//  stale              departments were written past this node since the build, every key passes until a rebuild
+//  deletesSinceBuild  deleted departments that still pass the filter until the next rebuild
+//  definiteMisses     lookups answered with 404 without the database
+//  passedMisses       lookups the filter let through that found nothing (false positives and deletes)
+//POST /actuator/departmentfilter -> rebuilds the filters now instead of at the next rebuild interval
+@Endpoint(id = "departmentfilter")
+public class DepartmentFilterEndpoint {
+
+    private final DepartmentExistenceFilter departmentExistenceFilter;
+
+    public DepartmentFilterEndpoint(DepartmentExistenceFilter departmentExistenceFilter) {
+        this.departmentExistenceFilter = departmentExistenceFilter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return departmentExistenceFilter.statistics();
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        departmentExistenceFilter.rebuild();
+        return departmentExistenceFilter.statistics();
+    }
+
+}
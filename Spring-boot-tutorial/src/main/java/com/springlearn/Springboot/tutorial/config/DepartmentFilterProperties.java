@@ -0,0 +1,35 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//bloom filters of the existing department ids and names, bound from department-filter.* in application.yml
+@Data
+@ConfigurationProperties(prefix = "department-filter")
+public class DepartmentFilterProperties {
+
+    //off -> every lookup goes to the database
+    private boolean enabled = true;
+
+    //share of lookups for missing departments that still go to the database
+    private double falsePositiveRate = 0.01;
+
+    //a filter is sized for the departments at the time it is built times this, so there is room for new ones
+    //until the next rebuild
+    private double headroom = 2.0;
+
+    //never sized for fewer departments than this (an empty table at startup)
+    private long minimumCapacity = 10000;
+
+    //deleted departments (and old names of renamed ones) stay in a filter until it is built again
+    //(read by the @Scheduled in DepartmentExistenceFilter)
+    private long rebuildIntervalMillis = 3600000;
+
+    //how often the write counter of the table is checked for departments written past this node
+    //(read by the @Scheduled in DepartmentExistenceFilter)
+    private long changePollIntervalMillis = 5000;
+
+    //a stale filter lets every key through until it is built again, at most once per this interval
+    private long minRebuildIntervalMillis = 60000;
+
+}
@@ -0,0 +1,96 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import com.springlearn.Springboot.tutorial.error.InvalidCursorException;
+import com.springlearn.Springboot.tutorial.error.SearchPageOutOfRangeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ValidationException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+
+//timers around every DepartmentService and DepartmentRepository method
+//department.service -> business logic + cache + database, department.repository -> database only
+//tags: method (name of the method) and outcome
+//  found            -> returned a result (or returned normally, for void methods)
+//  not-found        -> DepartmentNotFoundException, or nothing came back (null, empty Optional, empty list)
+//  validation-error -> invalid input (bean validation, bad cursor)
+//  conflict         -> duplicate department name, stale If-Match version
+//  error            -> anything else
+//for streams (exports) only opening the cursor is timed, not reading it
+//percentile histograms and slo buckets are configured under management.metrics.distribution in application.yml
+@Aspect
+@Component
+public class DepartmentMetricsAspect {
+
+    public static final String SERVICE_TIMER = "department.service";
+    public static final String REPOSITORY_TIMER = "department.repository";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(public * *(..)) && target(com.springlearn.Springboot.tutorial.service.DepartmentService)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    @Around("execution(public * *(..)) && target(com.springlearn.Springboot.tutorial.repository.DepartmentRepository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcome(joinPoint, result);
+            return result;
+        } catch (Throwable ex) {
+            outcome = outcome(ex);
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(ProceedingJoinPoint joinPoint, Object result) {
+        if(((MethodSignature) joinPoint.getSignature()).getReturnType() == void.class) {
+            return "found";
+        }
+        if(Objects.isNull(result)
+                || (result instanceof Optional && !((Optional<?>) result).isPresent())
+                || (result instanceof Collection && ((Collection<?>) result).isEmpty())) {
+            return "not-found";
+        }
+        return "found";
+    }
+
+    private static String outcome(Throwable ex) {
+        if(ex instanceof DepartmentNotFoundException) {
+            return "not-found";
+        }
+        if(ex instanceof ValidationException || ex instanceof InvalidCursorException
+                || ex instanceof SearchPageOutOfRangeException) {
+            return "validation-error";
+        }
+        if(ex instanceof DataIntegrityViolationException || ex instanceof DepartmentVersionMismatchException) {
+            return "conflict";
+        }
+        return "error";
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//trigram search over name, code and address (see DepartmentRepository.searchDepartments)
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(DepartmentSearchProperties.class)
+public class DepartmentSearchConfig {
+}
@@ -0,0 +1,26 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//department search (GET /departments/search), bound from department-search.* in application.yml
+@Data
+@ConfigurationProperties(prefix = "department-search")
+public class DepartmentSearchProperties {
+
+    //how close a word has to be to the query to count as a typo match (pg_trgm word_similarity, 0 to 1)
+    //lower finds more typos in short words (e.g. "sevnth" -> seventh is 0.5) but every query reads more candidates
+    private double wordSimilarityThreshold = 0.6;
+
+    //matches that are ranked per query - a term that is in more departments than this (e.g. "street")
+    //is ranked among the first max-candidates matches (lowest ids) only, instead of sorting all of them
+    //also the deepest a client can page, (page + 1) * size up to max-candidates
+    private int maxCandidates = 1000;
+
+    //a term with this many matches is common: its candidates are found by walking the departments in id order
+    //instead of reading every match from the trigram index (see DepartmentRepository.searchDepartments)
+    //the slowest search is a term just below it (all of them read and sorted) or just above it (the walk reads
+    //max-candidates / match share departments) - about 100ms each at 10000 with a million departments
+    private int commonTermMatches = 10000;
+
+}
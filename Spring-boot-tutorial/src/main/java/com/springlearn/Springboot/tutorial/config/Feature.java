@@ -0,0 +1,46 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//features that can be switched on and off at runtime (/actuator/features), checked through FeatureFlags
+//the name is the selector of the endpoint and the key of the feature_flag table
+public enum Feature {
+
+    DEPARTMENT("Department", true),
+    USER("User", false),
+    AUTHENTICATION("Authentication", false);
+
+    private static final Map<String, Feature> BY_NAME = new HashMap<>();
+
+    static {
+        for(Feature feature : values()) {
+            BY_NAME.put(feature.featureName, feature);
+        }
+    }
+
+    private final String featureName;
+    private final boolean enabledByDefault;
+
+    //bit of the feature in FeatureFlags' snapshot - at most 64 features
+    final long mask = 1L << ordinal();
+
+    Feature(String featureName, boolean enabledByDefault) {
+        this.featureName = featureName;
+        this.enabledByDefault = enabledByDefault;
+    }
+
+    public String getFeatureName() {
+        return featureName;
+    }
+
+    public boolean isEnabledByDefault() {
+        return enabledByDefault;
+    }
+
+    //null for an unknown name
+    public static Feature fromName(String featureName) {
+        return BY_NAME.get(featureName);
+    }
+
+}
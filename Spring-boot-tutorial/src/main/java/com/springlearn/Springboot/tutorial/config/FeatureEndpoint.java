@@ -3,40 +3,72 @@ package com.springlearn.Springboot.tutorial.config;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
 
+//GET    /actuator/features                  -> state of every feature
+//GET    /actuator/features/Department       -> state of one feature
+//POST   /actuator/features/Department       {"enabled": false} -> switches it on/off on every node (see FeatureFlags)
+//DELETE /actuator/features/Department       -> back to its default state
+//unknown feature -> 404
 @Component
 @Endpoint(id = "features")
 public class FeatureEndpoint {
 
-    private final Map<String, Feature> featureMap = new ConcurrentHashMap<>();
-
-    public FeatureEndpoint() {
-        featureMap.put("Department", new Feature(true));
-        featureMap.put("User", new Feature(false));
-        featureMap.put("Authentication", new Feature(false));
-    }
+    @Autowired
+    private FeatureFlags featureFlags;
 
     @ReadOperation
-    public Map<String, Feature> features() {
+    public Map<String, FeatureState> features() {
+        Map<String, FeatureState> featureMap = new LinkedHashMap<>();
+        for(Feature feature : Feature.values()) {
+            featureMap.put(feature.getFeatureName(), new FeatureState(featureFlags.isEnabled(feature)));
+        }
         return featureMap;
     }
 
     @ReadOperation
-    public Feature feature(@Selector String featureName) {
-        return featureMap.get(featureName);
+    public FeatureState feature(@Selector String featureName) {
+        Feature feature = Feature.fromName(featureName);
+        if(Objects.isNull(feature)) {
+            return null;
+        }
+        return new FeatureState(featureFlags.isEnabled(feature));
+    }
+
+    @WriteOperation
+    public FeatureState setFeature(@Selector String featureName, boolean enabled) {
+        Feature feature = Feature.fromName(featureName);
+        if(Objects.isNull(feature)) {
+            return null;
+        }
+        featureFlags.set(feature, enabled);
+        return new FeatureState(enabled);
+    }
+
+    @DeleteOperation
+    public FeatureState resetFeature(@Selector String featureName) {
+        Feature feature = Feature.fromName(featureName);
+        if(Objects.isNull(feature)) {
+            return null;
+        }
+        featureFlags.reset(feature);
+        return new FeatureState(featureFlags.isEnabled(feature));
     }
 
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
-    private static class Feature {
+    public static class FeatureState {
         private boolean isEnabled;
     }
 
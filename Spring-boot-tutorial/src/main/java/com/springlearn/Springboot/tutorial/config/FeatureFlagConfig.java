@@ -0,0 +1,24 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//the feature flags that gate request handlers
+//Department -> the whole department api (DepartmentController)
+@Configuration
+@Profile("!reactive")
+public class FeatureFlagConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private FeatureFlags featureFlags;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new FeatureInterceptor(featureFlags, Feature.DEPARTMENT))
+                .addPathPatterns("/departments", "/departments/**");
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import com.springlearn.Springboot.tutorial.entity.FeatureFlag;
+import com.springlearn.Springboot.tutorial.repository.FeatureFlagRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+//runtime state of the features
+//isEnabled is made to be called on every request: one volatile read and a bit test, no map lookup, no allocation
+//1. the state of all the features is one immutable snapshot (a bit per Feature), replaced as a whole on a change
+//2. changes are written to the feature_flag table and polled by every node every refresh-interval-millis,
+//   so a change made on one node reaches the others within that interval
+//3. no table (the reactive profile has no jpa) -> the state only lives in this node
+@Slf4j
+@Component
+public class FeatureFlags {
+
+    @Autowired
+    private ObjectProvider<FeatureFlagRepository> featureFlagRepository;
+
+    @Autowired
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    private volatile Snapshot snapshot = Snapshot.defaults();
+
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    public boolean isEnabled(Feature feature) {
+        return (snapshot.enabled & feature.mask) != 0;
+    }
+
+    @Scheduled(fixedDelayString = "${feature-flags.refresh-interval-millis:5000}")
+    public void refresh() {
+        FeatureFlagRepository repository = featureFlagRepository.getIfAvailable();
+        if(Objects.isNull(repository)) {
+            return;
+        }
+        try {
+            //under the lock of set/reset, so a poll cannot put back what a write just changed
+            //read-write transaction on purpose: findAll alone is read only and goes to a replica, which may not
+            //have the write of set/reset yet and would put the old state back
+            synchronized(this) {
+                snapshot = Snapshot.of(new TransactionTemplate(transactionManager.getObject())
+                        .execute(status -> repository.findAll()));
+            }
+        } catch (RuntimeException ex) {
+            //keep the last known state, the next poll tries again
+            log.warn("feature flags could not be loaded, keeping the current ones", ex);
+        }
+    }
+
+    //writes go through the table first - if that fails nothing changes, also not on this node
+    public void set(Feature feature, boolean enabled) {
+        FeatureFlagRepository repository = featureFlagRepository.getIfAvailable();
+        synchronized(this) {
+            if(Objects.nonNull(repository)) {
+                repository.save(new FeatureFlag(feature.getFeatureName(), enabled, Instant.now()));
+            }
+            snapshot = snapshot.with(feature, enabled);
+        }
+    }
+
+    //back to the default state of the feature
+    public void reset(Feature feature) {
+        FeatureFlagRepository repository = featureFlagRepository.getIfAvailable();
+        synchronized(this) {
+            if(Objects.nonNull(repository) && repository.existsById(feature.getFeatureName())) {
+                repository.deleteById(feature.getFeatureName());
+            }
+            snapshot = snapshot.with(feature, feature.isEnabledByDefault());
+        }
+    }
+
+    private static final class Snapshot {
+        private final long enabled;
+
+        private Snapshot(long enabled) {
+            this.enabled = enabled;
+        }
+
+        private static Snapshot defaults() {
+            long enabled = 0;
+            for(Feature feature : Feature.values()) {
+                if(feature.isEnabledByDefault()) {
+                    enabled |= feature.mask;
+                }
+            }
+            return new Snapshot(enabled);
+        }
+
+        //rows of features that no longer exist are ignored
+        private static Snapshot of(List<FeatureFlag> flags) {
+            Snapshot snapshot = defaults();
+            for(FeatureFlag flag : flags) {
+                Feature feature = Feature.fromName(flag.getName());
+                if(Objects.nonNull(feature)) {
+                    snapshot = snapshot.with(feature, flag.isEnabled());
+                }
+            }
+            return snapshot;
+        }
+
+        private Snapshot with(Feature feature, boolean enabled) {
+            return new Snapshot(enabled ? this.enabled | feature.mask : this.enabled & ~feature.mask);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import com.springlearn.Springboot.tutorial.error.FeatureDisabledException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+//rejects the requests of a feature that is switched off before the handler runs (404, see CustomRestExceptionHandler)
+//registered for the paths of the feature in FeatureFlagConfig
+public class FeatureInterceptor implements HandlerInterceptor {
+
+    private final FeatureFlags featureFlags;
+    private final Feature feature;
+    private final String disabledMessage;
+
+    public FeatureInterceptor(FeatureFlags featureFlags, Feature feature) {
+        this.featureFlags = featureFlags;
+        this.feature = feature;
+        this.disabledMessage = feature.getFeatureName() + " is disabled";
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if(!featureFlags.isEnabled(feature)) {
+            throw new FeatureDisabledException(disabledMessage);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.persistence.EntityManagerFactory;
+
+//hibernate statistics endpoint + the per request statement counting it reports
+//jpa only, there is no hibernate in the reactive profile
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(SqlStatisticsProperties.class)
+public class HibernateStatisticsConfig {
+
+    @Bean
+    public SqlStatisticsFilter sqlStatisticsFilter(SqlStatisticsProperties properties) {
+        return new SqlStatisticsFilter(properties);
+    }
+
+    //first filter of all, so the statements of every other filter are counted too
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilterRegistration(SqlStatisticsFilter filter) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public HibernateStatisticsEndpoint hibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory,
+                                                                   SqlStatisticsFilter filter,
+                                                                   SqlStatisticsProperties properties) {
+        return new HibernateStatisticsEndpoint(entityManagerFactory, filter, properties);
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//GET /actuator/hibernate -> hibernate statistics since startup (or the last reset)
+//  requests      statements per request and the requests over the sql-statistics thresholds (newest first)
+//  queries       execution count/time per query shape (the HQL or SQL string), most total time first
+//  entities      loads (by id or query), fetches (lazy loading - many of them point to an N+1), writes
+//  secondLevelCache, queryCache   hit ratios
+//DELETE /actuator/hibernate -> starts counting from zero again
+//replaces show-sql for finding slow or chatty requests, the statistics are switched on with
+//hibernate.generate_statistics in application.yml
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+    //the query strings are kept by hibernate anyway, only the most expensive ones are shown
+    private static final int MAX_QUERIES = 50;
+
+    private final Statistics statistics;
+    private final SqlStatisticsFilter sqlStatisticsFilter;
+    private final SqlStatisticsProperties properties;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory,
+                                       SqlStatisticsFilter sqlStatisticsFilter,
+                                       SqlStatisticsProperties properties) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.sqlStatisticsFilter = sqlStatisticsFilter;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("requests", requests());
+        result.put("queries", queries());
+        result.put("entities", entities());
+        result.put("secondLevelCache", cache(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        result.put("queryCache", cache(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.clear();
+        sqlStatisticsFilter.reset();
+    }
+
+    private Map<String, Object> requests() {
+        long requests = sqlStatisticsFilter.getRequests();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", requests);
+        result.put("statements", sqlStatisticsFilter.getStatements());
+        result.put("statementsPerRequest", requests == 0 ? 0 : (double) sqlStatisticsFilter.getStatements() / requests);
+        result.put("maxStatementsPerRequest", sqlStatisticsFilter.getMaxStatements());
+        result.put("statementThreshold", properties.getStatementThreshold());
+        result.put("queryTimeThresholdMillis", properties.getQueryTimeThreshold().toMillis());
+        result.put("flagged", sqlStatisticsFilter.getFlaggedRequests());
+        return result;
+    }
+
+    private Map<String, Object> queries() {
+        List<Map<String, Object>> queries = Arrays.stream(statistics.getQueries())
+                .map(query -> new AbstractMap.SimpleEntry<>(query, statistics.getQueryStatistics(query)))
+                //the repository queries are all known from startup, only the ones that ran are of interest
+                .filter(query -> query.getValue().getExecutionCount() > 0)
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<String, QueryStatistics> query) -> query.getValue().getExecutionTotalTime()).reversed())
+                .limit(MAX_QUERIES)
+                .map(query -> {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("query", query.getKey());
+                    result.put("executions", query.getValue().getExecutionCount());
+                    result.put("rows", query.getValue().getExecutionRowCount());
+                    result.put("totalMillis", query.getValue().getExecutionTotalTime());
+                    result.put("avgMillis", query.getValue().getExecutionAvgTime());
+                    result.put("maxMillis", query.getValue().getExecutionMaxTime());
+                    return result;
+                })
+                .collect(Collectors.toList());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("executions", statistics.getQueryExecutionCount());
+        result.put("maxMillis", statistics.getQueryExecutionMaxTime());
+        result.put("slowest", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("statementsPrepared", statistics.getPrepareStatementCount());
+        result.put("byQuery", queries);
+        return result;
+    }
+
+    private Map<String, Object> entities() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("loads", statistics.getEntityLoadCount());
+        result.put("fetches", statistics.getEntityFetchCount());
+        result.put("inserts", statistics.getEntityInsertCount());
+        result.put("updates", statistics.getEntityUpdateCount());
+        result.put("deletes", statistics.getEntityDeleteCount());
+        result.put("collectionFetches", statistics.getCollectionFetchCount());
+        Map<String, Object> byEntity = new LinkedHashMap<>();
+        for(String entityName : statistics.getEntityNames()) {
+            EntityStatistics entity = statistics.getEntityStatistics(entityName);
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("loads", entity.getLoadCount());
+            counts.put("fetches", entity.getFetchCount());
+            counts.put("inserts", entity.getInsertCount());
+            counts.put("updates", entity.getUpdateCount());
+            counts.put("deletes", entity.getDeleteCount());
+            byEntity.put(entityName.substring(entityName.lastIndexOf('.') + 1), counts);
+        }
+        result.put("byEntity", byEntity);
+        return result;
+    }
+
+    private static Map<String, Object> cache(long hits, long misses, long puts) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("puts", puts);
+        result.put("hitRatio", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        return result;
+    }
+
+}
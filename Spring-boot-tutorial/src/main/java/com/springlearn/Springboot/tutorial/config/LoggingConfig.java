@@ -0,0 +1,34 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+//the logging pipeline itself (async appender, json, sampling) is configured in logback-spring.xml
+//here: the correlation id of every request, and the dropped log events as a metric
+//(/actuator/metrics/logback.events.dropped, next to spring boot's logback.events)
+@Configuration
+public class LoggingConfig {
+
+    //first filter, so the log lines of every other filter carry the request id
+    @Bean
+    @Profile("!reactive")
+    public FilterRegistrationBean<CorrelationIdFilter> correlationIdFilter() {
+        FilterRegistrationBean<CorrelationIdFilter> registration = new FilterRegistrationBean<>(new CorrelationIdFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder droppedLogEventsMetrics() {
+        return registry -> FunctionCounter.builder("logback.events.dropped", CountingAsyncAppender.class,
+                        appender -> CountingAsyncAppender.dropped())
+                .description("Log events dropped by the async appender because its queue was (nearly) full")
+                .register(registry);
+    }
+
+}
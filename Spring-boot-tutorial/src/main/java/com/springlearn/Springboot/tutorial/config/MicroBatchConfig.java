@@ -0,0 +1,12 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//micro-batching of the jpa by-id lookups (see DepartmentBatchLoader)
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(MicroBatchProperties.class)
+public class MicroBatchConfig {
+}
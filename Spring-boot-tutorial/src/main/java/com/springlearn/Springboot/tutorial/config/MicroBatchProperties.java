@@ -0,0 +1,26 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//micro-batching of the by-id lookups (see DepartmentBatchLoader), bound from micro-batch.* in application.yml
+@Data
+@ConfigurationProperties(prefix = "micro-batch")
+public class MicroBatchProperties {
+
+    //off -> every lookup runs its own query
+    private boolean enabled = false;
+
+    //how long the first lookup of a batch waits for others to join it
+    private long windowMicros = 1000;
+
+    //a batch is sent as soon as it has this many lookups, window or not (ids in one IN list)
+    private int maxBatchSize = 100;
+
+    //batches that run at the same time - at most this many connections are used by lookups
+    private int maxConcurrentBatches = 4;
+
+    //a lookup that is not answered within this time fails (QueryTimeoutException -> 500)
+    private long timeoutMillis = 2000;
+
+}
@@ -0,0 +1,20 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//reactive profile
+//tomcat is on the classpath for the servlet api, and spring boot would run webflux on it through the servlet adapter
+//declaring the netty factory picks reactor netty instead - an event loop per core, no request thread pool
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//read replicas, bound from replica.* in application.yml
+//no datasources -> every query goes to the primary (spring.datasource)
+@Data
+@ConfigurationProperties(prefix = "replica")
+public class ReplicaProperties {
+
+    private List<Replica> datasources = new ArrayList<>();
+
+    //a replica that is further behind the primary than this is skipped until it catches up
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    //how often the lag of the replicas is checked (read by the @Scheduled in DataSourceConfig)
+    private long checkIntervalMillis = 5000;
+
+    //how long a read waits for a replica connection before it falls back to the primary
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+
+    @Data
+    public static class Replica {
+        private String url;
+
+        //username/password default to the ones of the primary
+        private String username;
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//routes connections of read only transactions to the replicas (round robin) and everything else to the primary
+//a replica is only used while it is healthy:
+//1. checkReplicas() reads the replication lag of every replica, a replica lagging more than maxLag is skipped
+//2. a replica that cannot hand out a connection is skipped until the next check finds it working again
+//with no healthy replica left, reads go to the primary
+//the transaction has to be known to be read only when the connection is taken - hence the
+//LazyConnectionDataSourceProxy in front of this (see DataSourceConfig)
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    //seconds the replica is behind the primary, 0 on a replica that has replayed everything it received
+    //and on a database that is not a replica at all (e.g. a local stand-in)
+    static final String REPLICATION_LAG_QUERY =
+            "select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if(TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            for(int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if(!replica.healthy) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException ex) {
+                    log.warn("replica {} unavailable, falling back: {}", replica.name, ex.getMessage());
+                    replica.healthy = false;
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    //replicas start out unhealthy, until the first check has found them working
+    public void checkReplicas() {
+        for(Replica replica : replicas) {
+            boolean healthy;
+            try(Connection connection = replica.dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet lag = statement.executeQuery(REPLICATION_LAG_QUERY)) {
+                lag.next();
+                double lagSeconds = lag.getDouble(1);
+                healthy = lagSeconds * 1000 <= maxLag.toMillis();
+                if(!healthy) {
+                    log.warn("replica {} is {}s behind the primary, reads go elsewhere", replica.name, lagSeconds);
+                }
+            } catch (SQLException ex) {
+                log.warn("replica {} health check failed: {}", replica.name, ex.getMessage());
+                healthy = false;
+            }
+
+            if(healthy && !replica.healthy) {
+                log.info("replica {} is healthy, taking reads", replica.name);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    //the pools are created for this datasource only, so they are closed with it
+    @Override
+    public void close() throws IOException {
+        if(primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+        for(Replica replica : replicas) {
+            if(replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+//keeps only a share of the INFO (and lower) log calls, per logger and per endpoint - WARN and ERROR always pass
+//a turbo filter runs before logback creates the event, so a call that is sampled out costs a map lookup
+//and a random number, nothing is formatted or queued
+//rules are prefixes with the share to keep (0 to 1), the longest matching prefix wins, e.g. in logback-spring.xml
+//  <logger>com.springlearn.Springboot.tutorial.controller=0.01</logger>
+//  <endpoint>GET /departments/=0.1</endpoint>     (matched against the endpoint put in the MDC by CorrelationIdFilter)
+//when both a logger and an endpoint rule match, the smaller share is used
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<Rule> loggerRules = new ArrayList<>();
+    private final List<Rule> endpointRules = new ArrayList<>();
+
+    //share per logger name, the rules are only matched once per logger
+    private final Map<String, Double> loggerShares = new ConcurrentHashMap<>();
+
+    public void addLogger(String rule) {
+        add(loggerRules, rule);
+        loggerShares.clear();
+    }
+
+    public void addEndpoint(String rule) {
+        add(endpointRules, rule);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if(!isStarted() || level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        double share = loggerShares.computeIfAbsent(logger.getName(), name -> share(loggerRules, name));
+        if(!endpointRules.isEmpty()) {
+            String endpoint = MDC.get(CorrelationIdFilter.ENDPOINT);
+            if(endpoint != null) {
+                share = Math.min(share, share(endpointRules, endpoint));
+            }
+        }
+        if(share >= 1.0 || ThreadLocalRandom.current().nextDouble() < share) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private static double share(List<Rule> rules, String value) {
+        for(Rule rule : rules) {
+            if(value.startsWith(rule.prefix)) {
+                return rule.share;
+            }
+        }
+        return 1.0;
+    }
+
+    private static void add(List<Rule> rules, String rule) {
+        int separator = rule.lastIndexOf('=');
+        if(separator < 0) {
+            throw new IllegalArgumentException("Sampling rule must be <prefix>=<share>, got " + rule);
+        }
+        rules.add(new Rule(rule.substring(0, separator).trim(), Double.parseDouble(rule.substring(separator + 1).trim())));
+        rules.sort(Comparator.comparingInt((Rule r) -> r.prefix.length()).reversed());
+    }
+
+    private static class Rule {
+        private final String prefix;
+        private final double share;
+
+        private Rule(String prefix, double share) {
+            this.prefix = prefix;
+            this.share = share;
+        }
+    }
+
+}
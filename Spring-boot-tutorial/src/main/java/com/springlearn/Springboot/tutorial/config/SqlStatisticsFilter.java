@@ -0,0 +1,114 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import lombok.Value;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+//counts the sql statements of every request (see SqlStatisticsListener)
+//requests over the statement or query time threshold are kept in a bounded buffer for /actuator/hibernate
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    private final SqlStatisticsProperties properties;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+    private final Deque<FlaggedRequest> flaggedRequests = new ArrayDeque<>();
+
+    public SqlStatisticsFilter(SqlStatisticsProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatisticsListener.RequestStatements requestStatements = SqlStatisticsListener.beginRequest();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatisticsListener.endRequest();
+            record(request, response, requestStatements, System.nanoTime() - start);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response,
+                        SqlStatisticsListener.RequestStatements requestStatements, long requestNanos) {
+        requests.incrementAndGet();
+        statements.addAndGet(requestStatements.getCount());
+        maxStatements.accumulate(requestStatements.getCount());
+
+        if(requestStatements.getCount() > properties.getStatementThreshold()
+                || requestStatements.getNanos() > properties.getQueryTimeThreshold().toNanos()) {
+            String uri = Objects.isNull(request.getQueryString())
+                    ? request.getRequestURI()
+                    : request.getRequestURI() + "?" + request.getQueryString();
+            FlaggedRequest flagged = new FlaggedRequest(Instant.now(), request.getMethod(), uri, response.getStatus(),
+                    requestStatements.getCount(),
+                    TimeUnit.NANOSECONDS.toMillis(requestStatements.getNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(requestNanos));
+            synchronized (flaggedRequests) {
+                if(flaggedRequests.size() >= properties.getFlaggedRequests()) {
+                    flaggedRequests.removeFirst();
+                }
+                flaggedRequests.addLast(flagged);
+            }
+        }
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    long getStatements() {
+        return statements.get();
+    }
+
+    long getMaxStatements() {
+        return maxStatements.get();
+    }
+
+    //newest first
+    List<FlaggedRequest> getFlaggedRequests() {
+        synchronized (flaggedRequests) {
+            List<FlaggedRequest> snapshot = new ArrayList<>(flaggedRequests.size());
+            flaggedRequests.descendingIterator().forEachRemaining(snapshot::add);
+            return snapshot;
+        }
+    }
+
+    void reset() {
+        requests.set(0);
+        statements.set(0);
+        maxStatements.reset();
+        synchronized (flaggedRequests) {
+            flaggedRequests.clear();
+        }
+    }
+
+    @Value
+    static class FlaggedRequest {
+        Instant timestamp;
+        String method;
+        String uri;
+        int status;
+        int statements;
+        long queryMillis;
+        long durationMillis;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.Objects;
+
+//counts the jdbc statements (and the time spent in them) of the current request
+//hibernate creates one listener per session (hibernate.session.events.auto in application.yml), the counts go to
+//the request that SqlStatisticsFilter has started on the same thread - statements outside of a request,
+//or on another thread (async exports), are not counted
+public class SqlStatisticsListener extends BaseSessionEventListener {
+
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    private long statementStart;
+    private long batchStart;
+
+    static RequestStatements beginRequest() {
+        RequestStatements statements = new RequestStatements();
+        CURRENT.set(statements);
+        return statements;
+    }
+
+    static void endRequest() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    //a batch is one round trip, it counts as one statement
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(System.nanoTime() - batchStart);
+    }
+
+    private static void record(long nanos) {
+        RequestStatements statements = CURRENT.get();
+        if(Objects.nonNull(statements)) {
+            statements.count++;
+            statements.nanos += nanos;
+        }
+    }
+
+    //a request is handled by one thread at a time, no synchronization needed
+    static class RequestStatements {
+        private int count;
+        private long nanos;
+
+        int getCount() {
+            return count;
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+    }
+
+}
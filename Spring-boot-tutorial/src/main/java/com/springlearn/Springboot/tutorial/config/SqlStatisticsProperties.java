@@ -0,0 +1,22 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//thresholds of the per request sql statistics, bound from sql-statistics.* in application.yml
+@Data
+@ConfigurationProperties(prefix = "sql-statistics")
+public class SqlStatisticsProperties {
+
+    //a request that runs more statements than this is flagged (usually an N+1)
+    private int statementThreshold = 20;
+
+    //a request that spends more time than this in jdbc statements is flagged
+    private Duration queryTimeThreshold = Duration.ofMillis(200);
+
+    //how many flagged requests are kept, the oldest ones are dropped first
+    private int flaggedRequests = 100;
+
+}
@@ -1,25 +1,58 @@
 package com.springlearn.Springboot.tutorial.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentMultiGet;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.DepartmentSearchResult;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
 import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
 import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
 import com.springlearn.Springboot.tutorial.service.DepartmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
 
+//servlet (spring mvc) api, the reactive profile serves the same api from ReactiveDepartmentController
 @RestController
+@Validated
+@Profile("!reactive")
 public class DepartmentController {
 
+    //fields=... -> sparse fieldset, e.g. /departments/1?fields=departmentId,departmentName
+    private static final String FIELD = "^(departmentId|departmentName|departmentAddress|departmentCode)$";
+    private static final String FIELD_MESSAGE =
+            "Fields are departmentId, departmentName, departmentAddress and departmentCode only";
+
     @Autowired
     private DepartmentService departmentService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     //implementing Logging with Slf4j
     //from the LoggerFactory, call getLogger method on the DepartmentController class
     //Loggers are helpful for DEBUGGING
@@ -38,42 +71,263 @@ public class DepartmentController {
         return departmentService.saveDepartment(department);
     }
 
-    @GetMapping("/departments")
-    public List<Department> fetchDepartmentList() {
+    //bulk insert - every department in the body is validated before anything is saved
+    //a failing department is reported by its index, e.g. saveDepartments.departments[3].departmentName
+    @PostMapping("/departments/batch")
+    public List<Department> saveDepartments(
+            @RequestBody
+            @Size(min = 1, max = 5000, message = "Between 1 and 5000 departments per batch")
+                    List<@Valid Department> departments) {
+        LOGGER.info("Inside saveDepartments of DepartmentController");
+        return departmentService.saveDepartments(departments);
+    }
+
+    //conditional GET - the ETag is checked with one aggregate query before the list is loaded
+    //a matching If-None-Match gets a 304 without reading or serializing a single department
+    //fields, size and ids each pick one of the mappings below, any two of them together match none
+    //and are a 400 (see CustomRestExceptionHandler) instead of one of them being ignored
+    @GetMapping(value = "/departments", params = {"!fields", "!size", "!ids"})
+    public ResponseEntity<List<Department>> fetchDepartmentList(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         LOGGER.info("Inside fetchDepartmentList of DepartmentController");
-        return departmentService.fetchDepartmentList();
+        if(Objects.nonNull(ifNoneMatch)) {
+            String eTag = DepartmentETags.of(departmentService.fetchDepartmentListVersion());
+            if(DepartmentETags.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+        }
+
+        List<Department> departments = departmentService.fetchDepartmentList();
+        return withETag(departments, DepartmentETags.of(departments));
+    }
+
+    //sparse fieldset of the list, e.g. /departments?fields=departmentId,departmentName
+    //only the requested columns are selected and serialized (see DepartmentView), the ETag is the one of the full list
+    //not combined with size or ids - pages and multi-gets always have every field
+    @GetMapping(value = "/departments", params = {"fields", "!size", "!ids"})
+    public ResponseEntity<List<DepartmentView>> fetchDepartmentListFields(
+            @RequestParam("fields")
+            @Size(min = 1, message = FIELD_MESSAGE) List<@Pattern(regexp = FIELD, message = FIELD_MESSAGE) String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if(Objects.nonNull(ifNoneMatch)) {
+            String eTag = DepartmentETags.of(departmentService.fetchDepartmentListVersion());
+            if(DepartmentETags.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+        }
+
+        List<DepartmentView> departments = departmentService.fetchDepartmentList(DepartmentField.of(fields));
+        return withETag(departments, DepartmentETags.ofViews(departments));
+    }
+
+    //keyset pagination - picked over the plain list whenever the client sends a page size
+    //e.g. /departments?size=50&sort=departmentName, then /departments?size=50&cursor=<nextCursor>
+    //total=true adds an approximate row count (planner estimate, not count(*))
+    //the ETag covers the departments of the page - spring answers a matching If-None-Match with a 304
+    //before the page is serialized
+    @GetMapping(value = "/departments", params = {"size", "!fields", "!ids"})
+    public ResponseEntity<DepartmentPage> fetchDepartmentPage(
+            @RequestParam("size") @Min(value = 1, message = "Minimum page size is 1")
+            @Max(value = 500, message = "Maximum page size is 500") int size,
+            @RequestParam(value = "sort", defaultValue = "departmentId")
+            @Pattern(regexp = "^(departmentId|departmentName)$", message = "Sort by departmentId or departmentName only")
+                    String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "total", defaultValue = "false") boolean includeTotal) {
+        LOGGER.info("Inside fetchDepartmentPage of DepartmentController");
+        DepartmentPage page = departmentService.fetchDepartmentPage(size, sort, cursor, includeTotal);
+        return withETag(page, DepartmentETags.of(page.getContent()));
     }
 
+    //export the whole table as newline delimited json, one department per line
+    //rows are written while they are read from the database cursor, nothing is collected in between
+    //the response is written on the async request executor, so a long export does not hold a request thread
+    @GetMapping(value = "/departments/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDepartments() {
+        LOGGER.info("Inside exportDepartments of DepartmentController");
+        //no flush per row - let the generator buffer fill up, only the first row is flushed right away
+        ObjectWriter writer = objectMapper.writerFor(Department.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            boolean[] first = {true};
+
+            departmentService.exportDepartments(department -> {
+                try {
+                    writer.writeValue(generator, department);
+                    generator.writeRaw('\n');
+                    if(first[0]) {
+                        generator.flush();
+                        first[0] = false;
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.flush();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    //conditional GET - with If-None-Match only the version is looked up first,
+    //the department is loaded only when the client's copy is out of date
     @GetMapping("/departments/{id}")
-    public Department fetchDepartmentById(@PathVariable("id") Long departmentId) throws DepartmentNotFoundException {
-        return departmentService.fetchDepartmentById(departmentId);
+    public ResponseEntity<Department> fetchDepartmentById(
+            @PathVariable("id") Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws DepartmentNotFoundException {
+        if(Objects.nonNull(ifNoneMatch)) {
+            String eTag = DepartmentETags.of(departmentService.fetchDepartmentVersion(departmentId));
+            if(DepartmentETags.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+        }
+
+        Department department = departmentService.fetchDepartmentById(departmentId);
+        return withETag(department, DepartmentETags.of(department.getVersion()));
+    }
+
+    @GetMapping(value = "/departments/{id}", params = "fields")
+    public ResponseEntity<DepartmentView> fetchDepartmentFieldsById(
+            @PathVariable("id") Long departmentId,
+            @RequestParam("fields")
+            @Size(min = 1, message = FIELD_MESSAGE) List<@Pattern(regexp = FIELD, message = FIELD_MESSAGE) String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws DepartmentNotFoundException {
+        if(Objects.nonNull(ifNoneMatch)) {
+            String eTag = DepartmentETags.of(departmentService.fetchDepartmentVersion(departmentId));
+            if(DepartmentETags.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+        }
+
+        DepartmentView department = departmentService.fetchDepartmentById(departmentId, DepartmentField.of(fields));
+        return withETag(department, DepartmentETags.of(department.getVersion()));
+    }
+
+    //multi-get, e.g. GET /departments?ids=1,2,3 - departments that exist plus the ids that do not,
+    //one missing id does not fail the call; all ids are read with one IN query (per 500 ids)
+    @GetMapping(value = "/departments", params = {"ids", "!fields", "!size"})
+    public ResponseEntity<DepartmentMultiGet> fetchDepartmentsByIds(
+            @RequestParam("ids")
+            @Size(min = 1, max = 1000, message = "Between 1 and 1000 ids per call") List<@NotNull Long> departmentIds) {
+        DepartmentMultiGet result = departmentService.fetchDepartmentsByIds(departmentIds);
+        return withETag(result, DepartmentETags.of(result.getDepartments()));
+    }
+
+    //multi-get for more ids than fit into a url - the ids as a json array in the body
+    @PostMapping("/departments/lookup")
+    public ResponseEntity<DepartmentMultiGet> lookupDepartmentsByIds(
+            @RequestBody
+            @Size(min = 1, max = 10000, message = "Between 1 and 10000 ids per call") List<@NotNull Long> departmentIds) {
+        DepartmentMultiGet result = departmentService.fetchDepartmentsByIds(departmentIds);
+        return withETag(result, DepartmentETags.of(result.getDepartments()));
     }
 
+    //If-Match -> only deletes the department if it is still the version the client has seen, otherwise 412
+    //without If-Match (or with *) the department is deleted whatever its version
     @DeleteMapping("/departments/{id}")
-    public String deleteDepartmentById(@PathVariable("id") Long departmentId) throws DepartmentNotFoundException {
-        departmentService.deleteDepartmentById(departmentId);
+    public String deleteDepartmentById(
+            @PathVariable("id") Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws DepartmentNotFoundException {
+        Long expectedVersion = DepartmentETags.expectedVersion(ifMatch);
+        if(Objects.isNull(expectedVersion)) {
+            departmentService.deleteDepartmentById(departmentId);
+        } else {
+            departmentService.deleteDepartmentById(departmentId, expectedVersion);
+        }
         return "Department deleted successfully";
     }
 
+    //bulk delete, e.g. DELETE /departments?ids=1,2,3 - one statement for all ids
+    @DeleteMapping(value = "/departments", params = "ids")
+    public String deleteDepartmentsByIds(
+            @RequestParam("ids")
+            @Size(min = 1, max = 1000, message = "Between 1 and 1000 ids per call") List<Long> departmentIds) {
+        int deleted = departmentService.deleteDepartmentsByIds(departmentIds);
+        return deleted + " departments deleted successfully";
+    }
+
     //update -> need the path variable which is the id and the department object
     //so we need to take the take the new department object and update it with the old department object stored
     //hence why we need to use RequestBody
+    //If-Match -> optimistic concurrency, the update only goes through if nobody has changed the department
+    //since the client read it, otherwise 412; the response carries the ETag of the new version
     @PutMapping("/departments/{id}")
-    public Department updateDepartment(
+    public ResponseEntity<Department> updateDepartment(
             @PathVariable("id") Long departmentId,
-            @Valid @RequestBody UpdatableDepartment department)
+            @Valid @RequestBody UpdatableDepartment department,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
             throws DepartmentNotFoundException {
-        return departmentService.updateDepartment(departmentId, department);
+        Long expectedVersion = DepartmentETags.expectedVersion(ifMatch);
+        Department updated = Objects.isNull(expectedVersion)
+                ? departmentService.updateDepartment(departmentId, department)
+                : departmentService.updateDepartment(departmentId, department, expectedVersion);
+        return withETag(updated, DepartmentETags.of(updated.getVersion()));
     }
 
     @GetMapping("/departments/name/all/{name}")
-    public List<Department> fetchDepartmentByName(@PathVariable("name") String departmentName) {
-        return departmentService.fetchDepartmentByName(departmentName);
+    public ResponseEntity<List<Department>> fetchDepartmentByName(@PathVariable("name") String departmentName) {
+        List<Department> departments = departmentService.fetchDepartmentByName(departmentName);
+        return withETag(departments, DepartmentETags.of(departments));
     }
 
     @GetMapping("/departments/name/one/{name}")
-    public Department fetchOneDepartmentByName(@PathVariable("name") String departmentName) throws DepartmentNotFoundException {
-        return departmentService.fetchOneDepartmentByName(departmentName);
+    public ResponseEntity<Department> fetchOneDepartmentByName(@PathVariable("name") String departmentName)
+            throws DepartmentNotFoundException {
+        Department department = departmentService.fetchOneDepartmentByName(departmentName);
+        return withETag(department, DepartmentETags.of(department.getVersion()));
+    }
+
+    @GetMapping(value = "/departments/name/all/{name}", params = "fields")
+    public ResponseEntity<List<DepartmentView>> fetchDepartmentFieldsByName(
+            @PathVariable("name") String departmentName,
+            @RequestParam("fields")
+            @Size(min = 1, message = FIELD_MESSAGE) List<@Pattern(regexp = FIELD, message = FIELD_MESSAGE) String> fields) {
+        List<DepartmentView> departments = departmentService.fetchDepartmentByName(departmentName, DepartmentField.of(fields));
+        return withETag(departments, DepartmentETags.ofViews(departments));
+    }
+
+    @GetMapping(value = "/departments/name/one/{name}", params = "fields")
+    public ResponseEntity<DepartmentView> fetchOneDepartmentFieldsByName(
+            @PathVariable("name") String departmentName,
+            @RequestParam("fields")
+            @Size(min = 1, message = FIELD_MESSAGE) List<@Pattern(regexp = FIELD, message = FIELD_MESSAGE) String> fields)
+            throws DepartmentNotFoundException {
+        DepartmentView department = departmentService.fetchOneDepartmentByName(departmentName, DepartmentField.of(fields));
+        return withETag(department, DepartmentETags.of(department.getVersion()));
+    }
+
+    //search as you type, e.g. /departments/search?q=engin&page=0&size=20
+    //matches the start of a name, any part of name/code/address, and words with a typo ("enginering")
+    //at least 3 characters - trigram matching has nothing to go on below that
+    //pages end with the ranked candidates, (page + 1) * size up to department-search.max-candidates (400 past it)
+    @GetMapping("/departments/search")
+    public ResponseEntity<DepartmentSearchResult> searchDepartments(
+            @RequestParam("q")
+            @Size(min = 3, max = 100, message = "Search between 3 and 100 characters") String query,
+            @RequestParam(value = "page", defaultValue = "0") @Min(value = 0, message = "Minimum page is 0") int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(value = 1, message = "Minimum page size is 1")
+            @Max(value = 50, message = "Maximum page size is 50") int size) {
+        DepartmentSearchResult result = departmentService.searchDepartments(query, page, size);
+        return withETag(result, DepartmentETags.of(result.getContent()));
+    }
+
+    //the version is only null for a department that was never saved, then there is no ETag to send
+    private static <T> ResponseEntity<T> withETag(T body, String eTag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(Objects.nonNull(eTag)) {
+            response.eTag(eTag);
+        }
+        return response.body(body);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
     }
 
 
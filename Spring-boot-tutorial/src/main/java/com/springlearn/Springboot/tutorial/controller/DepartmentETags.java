@@ -0,0 +1,92 @@
+package com.springlearn.Springboot.tutorial.controller;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentListVersion;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+
+import java.util.List;
+import java.util.Objects;
+
+//ETags of the department endpoints
+//one department -> strong ETag of its version, e.g. "3"
+//list of departments -> weak ETag of row count, sum of ids and sum of versions, e.g. W/"2-3-5"
+//a single insert, update or delete always changes one of the three numbers, several changes between two requests
+//can cancel each other out - e.g. ids 40 and 60 deleted and ids 45 and 55 inserted (ids come from the pooled blocks
+//of every node, so they are not in insert order); the list then keeps its tag and a client with If-None-Match
+//gets a 304 for the old list until the next change - weak on purpose, a tag that is exact would need a
+//list-wide counter that every write updates, i.e. one row all the writes queue up on
+final class DepartmentETags {
+
+    private DepartmentETags() {
+    }
+
+    static String of(Long version) {
+        return Objects.isNull(version) ? null : "\"" + version + "\"";
+    }
+
+    static String of(DepartmentListVersion listVersion) {
+        return listTag(listVersion.getCount(), listVersion.getIdSum(), listVersion.getVersionSum());
+    }
+
+    static String of(List<Department> departments) {
+        long idSum = 0;
+        long versionSum = 0;
+        for(Department department : departments) {
+            idSum += department.getDepartmentId();
+            versionSum += Objects.isNull(department.getVersion()) ? 0 : department.getVersion();
+        }
+        return listTag(departments.size(), idSum, versionSum);
+    }
+
+    //same tag for a sparse fieldset of the list, the id and version are always read
+    static String ofViews(List<DepartmentView> departments) {
+        long idSum = 0;
+        long versionSum = 0;
+        for(DepartmentView department : departments) {
+            idSum += department.getDepartmentId();
+            versionSum += Objects.isNull(department.getVersion()) ? 0 : department.getVersion();
+        }
+        return listTag(departments.size(), idSum, versionSum);
+    }
+
+    private static String listTag(long count, long idSum, long versionSum) {
+        return "W/\"" + count + "-" + idSum + "-" + versionSum + "\"";
+    }
+
+    //If-None-Match uses the weak comparison - W/"1" matches "1"
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if(Objects.isNull(ifNoneMatch) || Objects.isNull(eTag)) {
+            return false;
+        }
+        for(String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if("*".equals(candidate) || opaque(candidate).equals(opaque(eTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    //If-Match -> the version the client expects, null for no header or *
+    //If-Match uses the strong comparison, so a weak or unreadable ETag can never match
+    static Long expectedVersion(String ifMatch) {
+        if(Objects.isNull(ifMatch) || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+
+        String eTag = ifMatch.trim();
+        if(eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            try {
+                return Long.valueOf(eTag.substring(1, eTag.length() - 1));
+            } catch (NumberFormatException ex) {
+                //falls through to the mismatch below
+            }
+        }
+        throw new DepartmentVersionMismatchException("Department Version does not match");
+    }
+}
@@ -0,0 +1,176 @@
+package com.springlearn.Springboot.tutorial.controller;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
+import com.springlearn.Springboot.tutorial.error.UnsupportedParameterException;
+import com.springlearn.Springboot.tutorial.service.ReactiveDepartmentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.Objects;
+
+//the /departments api of DepartmentController on webflux (reactive profile)
+//same paths, parameters, validation, ETags and error bodies - a client cannot tell the two apart
+//covers the original endpoints only: multi-get (ids), sparse fieldsets (fields) and search are not ported,
+//they are answered with 400 instead of being served as if the parameter was not there
+//requests are served by a few event loop threads, no thread waits for the database
+@RestController
+@Validated
+@Profile("reactive")
+@Slf4j
+public class ReactiveDepartmentController {
+
+    @Autowired
+    private ReactiveDepartmentService departmentService;
+
+    @PostMapping("/departments")
+    public Mono<Department> saveDepartment(@Valid @RequestBody Department department) {
+        log.info("Inside saveDepartment of ReactiveDepartmentController");
+        return departmentService.saveDepartment(department);
+    }
+
+    @PostMapping("/departments/batch")
+    public Flux<Department> saveDepartments(
+            @RequestBody
+            @Size(min = 1, max = 5000, message = "Between 1 and 5000 departments per batch")
+                    List<@Valid Department> departments) {
+        log.info("Inside saveDepartments of ReactiveDepartmentController");
+        return departmentService.saveDepartments(departments);
+    }
+
+    //the list is collected first, its ETag needs every department
+    //webflux answers a matching If-None-Match with a 304 before the body is written
+    @GetMapping(value = "/departments", params = {"!size", "!ids", "!fields"})
+    public Mono<ResponseEntity<List<Department>>> fetchDepartmentList() {
+        log.info("Inside fetchDepartmentList of ReactiveDepartmentController");
+        return departmentService.fetchDepartmentList().collectList()
+                .map(departments -> withETag(departments, DepartmentETags.of(departments)));
+    }
+
+    @GetMapping(value = "/departments", params = {"size", "!ids", "!fields"})
+    public Mono<ResponseEntity<DepartmentPage>> fetchDepartmentPage(
+            @RequestParam("size") @Min(value = 1, message = "Minimum page size is 1")
+            @Max(value = 500, message = "Maximum page size is 500") int size,
+            @RequestParam(value = "sort", defaultValue = "departmentId")
+            @Pattern(regexp = "^(departmentId|departmentName)$", message = "Sort by departmentId or departmentName only")
+                    String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "total", defaultValue = "false") boolean includeTotal) {
+        log.info("Inside fetchDepartmentPage of ReactiveDepartmentController");
+        return departmentService.fetchDepartmentPage(size, sort, cursor, includeTotal)
+                .map(page -> withETag(page, DepartmentETags.of(page.getContent())));
+    }
+
+    //newline delimited json, one department per line, written as the rows arrive
+    @GetMapping(value = "/departments/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Department> exportDepartments() {
+        log.info("Inside exportDepartments of ReactiveDepartmentController");
+        return departmentService.exportDepartments();
+    }
+
+    //conditional GET - with If-None-Match only the version is looked up first
+    @GetMapping(value = "/departments/{id}", params = "!fields")
+    public Mono<ResponseEntity<Department>> fetchDepartmentById(
+            @PathVariable("id") Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<Department>> department = departmentService.fetchDepartmentById(departmentId)
+                .map(found -> withETag(found, DepartmentETags.of(found.getVersion())));
+        if(Objects.isNull(ifNoneMatch)) {
+            return department;
+        }
+
+        return departmentService.fetchDepartmentVersion(departmentId)
+                .map(DepartmentETags::of)
+                .flatMap(eTag -> DepartmentETags.matches(ifNoneMatch, eTag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<Department>build())
+                        : department);
+    }
+
+    @DeleteMapping("/departments/{id}")
+    public Mono<String> deleteDepartmentById(
+            @PathVariable("id") Long departmentId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = DepartmentETags.expectedVersion(ifMatch);
+        Mono<Void> deleted = Objects.isNull(expectedVersion)
+                ? departmentService.deleteDepartmentById(departmentId)
+                : departmentService.deleteDepartmentById(departmentId, expectedVersion);
+        return deleted.thenReturn("Department deleted successfully");
+    }
+
+    @DeleteMapping(value = "/departments", params = "ids")
+    public Mono<String> deleteDepartmentsByIds(
+            @RequestParam("ids")
+            @Size(min = 1, max = 1000, message = "Between 1 and 1000 ids per call") List<Long> departmentIds) {
+        return departmentService.deleteDepartmentsByIds(departmentIds)
+                .map(deleted -> deleted + " departments deleted successfully");
+    }
+
+    @PutMapping("/departments/{id}")
+    public Mono<ResponseEntity<Department>> updateDepartment(
+            @PathVariable("id") Long departmentId,
+            @Valid @RequestBody UpdatableDepartment department,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = DepartmentETags.expectedVersion(ifMatch);
+        Mono<Department> updated = Objects.isNull(expectedVersion)
+                ? departmentService.updateDepartment(departmentId, department)
+                : departmentService.updateDepartment(departmentId, department, expectedVersion);
+        return updated.map(found -> withETag(found, DepartmentETags.of(found.getVersion())));
+    }
+
+    @GetMapping(value = "/departments/name/all/{name}", params = "!fields")
+    public Mono<ResponseEntity<List<Department>>> fetchDepartmentByName(@PathVariable("name") String departmentName) {
+        return departmentService.fetchDepartmentByName(departmentName).collectList()
+                .map(departments -> withETag(departments, DepartmentETags.of(departments)));
+    }
+
+    @GetMapping(value = "/departments/name/one/{name}", params = "!fields")
+    public Mono<ResponseEntity<Department>> fetchOneDepartmentByName(@PathVariable("name") String departmentName) {
+        return departmentService.fetchOneDepartmentByName(departmentName)
+                .map(found -> withETag(found, DepartmentETags.of(found.getVersion())));
+    }
+
+    //not ported - see the class comment
+    @GetMapping(value = "/departments", params = "ids")
+    public Mono<Void> fetchDepartmentsByIds() {
+        return Mono.error(new UnsupportedParameterException("ids",
+                "Multi-get is not available in the reactive profile"));
+    }
+
+    @GetMapping(value = {"/departments", "/departments/{id}", "/departments/name/all/{name}",
+            "/departments/name/one/{name}"}, params = {"fields", "!ids"})
+    public Mono<Void> fetchDepartmentFields() {
+        return Mono.error(new UnsupportedParameterException("fields",
+                "Sparse fieldsets are not available in the reactive profile"));
+    }
+
+    @GetMapping("/departments/search")
+    public Mono<Void> searchDepartments() {
+        return Mono.error(new UnsupportedParameterException("q",
+                "Search is not available in the reactive profile"));
+    }
+
+    private static <T> ResponseEntity<T> withETag(T body, String eTag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(Objects.nonNull(eTag)) {
+            response.eTag(eTag);
+        }
+        return response.body(body);
+    }
+
+}
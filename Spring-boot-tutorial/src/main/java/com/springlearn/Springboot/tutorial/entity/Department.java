@@ -1,5 +1,6 @@
 package com.springlearn.Springboot.tutorial.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,8 +21,11 @@ import javax.validation.constraints.Size;
 @Builder
 public class Department {
 
+    //sequence with allocationSize 50 -> hibernate uses the pooled optimizer and only calls nextval
+    //once every 50 inserts, which also lets it group the inserts into jdbc batches
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "department_seq")
+    @SequenceGenerator(name = "department_seq", sequenceName = "department_seq", allocationSize = 50)
     private Long departmentId;
 
     //Not Blank - what message it will display when this validation fails
@@ -37,5 +41,10 @@ public class Department {
     @Size(max = 6, message = "Maximum length of 6 only")
     private String departmentCode;
 
+    //bumped on every update, sent to clients as the ETag header instead of in the body
+    @Version
+    @JsonIgnore
+    private Long version;
+
 }
 
@@ -0,0 +1,48 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+//the fields a client can ask for with fields=..., e.g. /departments/1?fields=departmentId,departmentName
+//the property name is both the json field and the attribute of Department in jpql
+public enum DepartmentField {
+    DEPARTMENT_ID("departmentId"),
+    DEPARTMENT_NAME("departmentName"),
+    DEPARTMENT_ADDRESS("departmentAddress"),
+    DEPARTMENT_CODE("departmentCode");
+
+    private final String property;
+
+    DepartmentField(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object valueOf(Department department) {
+        switch(this) {
+            case DEPARTMENT_ID:
+                return department.getDepartmentId();
+            case DEPARTMENT_NAME:
+                return department.getDepartmentName();
+            case DEPARTMENT_ADDRESS:
+                return department.getDepartmentAddress();
+            default:
+                return department.getDepartmentCode();
+        }
+    }
+
+    //always in declaration order, whatever order the client asked in; unknown names are skipped
+    public static Set<DepartmentField> of(Collection<String> properties) {
+        Set<DepartmentField> fields = EnumSet.noneOf(DepartmentField.class);
+        for(DepartmentField field : values()) {
+            if(properties.contains(field.property)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+}
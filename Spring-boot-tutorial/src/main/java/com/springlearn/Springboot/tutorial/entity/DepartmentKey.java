@@ -0,0 +1,10 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+//the columns a department is looked up by - all the existence filter needs to read from a row
+public interface DepartmentKey {
+
+    Long getDepartmentId();
+
+    String getDepartmentName();
+
+}
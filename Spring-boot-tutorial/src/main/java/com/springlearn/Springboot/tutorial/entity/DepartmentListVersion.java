@@ -0,0 +1,14 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+//aggregate of the department list for its weak ETag, without loading the departments
+//insert/delete -> count and idSum change (ids are never reused), update -> versionSum changes
+//changes that cancel each other out leave it as it was (see DepartmentETags)
+public interface DepartmentListVersion {
+
+    Long getCount();
+
+    Long getIdSum();
+
+    Long getVersionSum();
+
+}
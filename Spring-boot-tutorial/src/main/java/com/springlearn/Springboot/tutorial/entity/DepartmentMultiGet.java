@@ -0,0 +1,22 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//result of a multi-get by ids - the departments that exist, and the ids that do not
+//both lists follow the order of the requested ids, an id asked for twice is only listed once
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DepartmentMultiGet {
+
+    private List<Department> departments;
+
+    private List<Long> missingIds;
+
+}
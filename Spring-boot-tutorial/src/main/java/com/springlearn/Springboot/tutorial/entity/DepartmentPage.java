@@ -0,0 +1,25 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//one page of a keyset (cursor) paginated department listing
+//nextCursor is opaque to clients - pass it back as-is to get the following page, null on the last page
+//approximateTotal is the planner's row estimate, only filled in when the client asks for it
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DepartmentPage {
+
+    private List<Department> content;
+
+    private String nextCursor;
+
+    private Long approximateTotal;
+
+}
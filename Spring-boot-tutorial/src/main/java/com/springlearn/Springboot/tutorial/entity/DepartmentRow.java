@@ -0,0 +1,53 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+//a row of the department table as r2dbc (reactive profile) reads and writes it
+//Department is a jpa @Entity, spring data would hand a repository of it to jpa - so r2dbc gets a class of its own
+//the api itself still sends and receives Department
+@Table("department")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DepartmentRow {
+
+    //null on insert, the column default takes the next id from department_seq
+    @Id
+    private Long departmentId;
+
+    private String departmentName;
+
+    private String departmentAddress;
+
+    private String departmentCode;
+
+    @Version
+    private Long version;
+
+    //new row from a department sent by a client, id and version are assigned by the database
+    public static DepartmentRow insertOf(Department department) {
+        return DepartmentRow.builder()
+                .departmentName(department.getDepartmentName())
+                .departmentAddress(department.getDepartmentAddress())
+                .departmentCode(department.getDepartmentCode())
+                .build();
+    }
+
+    public Department toDepartment() {
+        return Department.builder()
+                .departmentId(departmentId)
+                .departmentName(departmentName)
+                .departmentAddress(departmentAddress)
+                .departmentCode(departmentCode)
+                .version(version)
+                .build();
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+//one page of a department search, best match first
+//hasNext tells if the following page has results - there is no total, counting every match would cost
+//as much as the search itself
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DepartmentSearchResult {
+
+    private List<Department> content;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasNext;
+
+}
@@ -0,0 +1,27 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+//the columns GET /departments can be keyset paginated on
+//every sort ends with departmentId so the order is total and a cursor always points to exactly one row
+public enum DepartmentSort {
+    ID("departmentId"),
+    NAME("departmentName");
+
+    private final String property;
+
+    DepartmentSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static DepartmentSort fromProperty(String property) {
+        for(DepartmentSort sort : values()) {
+            if(sort.property.equals(property)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort property " + property);
+    }
+}
@@ -0,0 +1,53 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+//sparse fieldset of a department (fields=...) - serialized with only the requested fields
+//the id and version are always there (primary key, ETag) but only serialized when they were asked for
+@EqualsAndHashCode
+@ToString
+public class DepartmentView {
+
+    @JsonIgnore
+    private final Long departmentId;
+
+    @JsonIgnore
+    private final Long version;
+
+    private final Map<String, Object> fields;
+
+    public DepartmentView(Long departmentId, Long version, Map<String, Object> fields) {
+        this.departmentId = departmentId;
+        this.version = version;
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    //the same fields cut from a department that is loaded already (e.g. cached)
+    public static DepartmentView of(Department department, Set<DepartmentField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        fields.forEach(field -> values.put(field.getProperty(), field.valueOf(department)));
+        return new DepartmentView(department.getDepartmentId(), department.getVersion(), values);
+    }
+
+    public Long getDepartmentId() {
+        return departmentId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.springlearn.Springboot.tutorial.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+//state of a feature that was changed at runtime (the name of a config.Feature)
+@Entity
+@Table(name = "feature_flag")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FeatureFlag {
+
+    @Id
+    private String name;
+
+    private boolean enabled;
+
+    private Instant updatedAt;
+
+}
@@ -1,14 +1,21 @@
 package com.springlearn.Springboot.tutorial.error;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.springlearn.Springboot.tutorial.entity.ApiError;
 import com.springlearn.Springboot.tutorial.entity.FieldValidationError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.ServletRequestBindingException;
+import org.springframework.web.bind.UnsatisfiedServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -21,13 +28,24 @@ import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 //the class that will handle all the exceptions that will be send back as a response
 //extends ResponseEntityExceptionHandler
 //ControllerAdvice - need the annotation - this is the class that will handle all the exceptions
 //this will create a response for the exception and send it back as a response object
+//servlet stack only - the reactive profile uses ReactiveRestExceptionHandler
+@Slf4j
 @ControllerAdvice
+@Profile("!reactive")
 public class CustomRestExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final NotFoundResponseBody notFoundResponseBody;
+
+    public CustomRestExceptionHandler(ObjectMapper objectMapper) {
+        this.notFoundResponseBody = new NotFoundResponseBody(objectMapper, DepartmentNotFoundException.MESSAGE);
+    }
+
     //400
     //MethodArgumentNotValidException: this exception is thrown when argument annotated with @Valid failed validation
     @Override
@@ -75,6 +93,23 @@ public class CustomRestExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(apiError, apiError.getStatus());
     }
 
+    //UnsatisfiedServletRequestParameterException: no mapping takes this combination of request parameters,
+    //e.g. /departments?fields=...&size=... - pages and multi-gets always have every field
+    @Override
+    protected ResponseEntity<Object> handleServletRequestBindingException(
+            ServletRequestBindingException ex,
+            HttpHeaders headers,
+            HttpStatus status,
+            WebRequest request) {
+        if(ex instanceof UnsatisfiedServletRequestParameterException) {
+            Set<String> params = ((UnsatisfiedServletRequestParameterException) ex).getActualParams().keySet();
+            ApiError apiError = new ApiError(HttpStatus.BAD_REQUEST, String.join(",", params),
+                    "These parameters cannot be combined");
+            return new ResponseEntity<>(apiError, apiError.getStatus());
+        }
+        return super.handleServletRequestBindingException(ex, headers, status, request);
+    }
+
     //MethodArgumentTypeMismatchException: this exception is thrown when method argument is not the expected type
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<Object> handleMethodArgumentTypeMismatchException(
@@ -100,13 +135,63 @@ public class CustomRestExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(apiError, apiError.getStatus());
     }
 
+    //InvalidCursorException: the pagination cursor sent back by the client could not be decoded
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        ApiError apiError = new ApiError(HttpStatus.BAD_REQUEST, "cursor", ex.getMessage());
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+
+    //SearchPageOutOfRangeException: the search page starts or ends past the ranked candidates
+    @ExceptionHandler(SearchPageOutOfRangeException.class)
+    public ResponseEntity<Object> handleSearchPageOutOfRange(SearchPageOutOfRangeException ex, WebRequest request) {
+        ApiError apiError = new ApiError(HttpStatus.BAD_REQUEST, "page", ex.getMessage());
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+
+    //409
+    //DataIntegrityViolationException: the write broke a database constraint
+    //the unique department name (department_name_key) is reported on departmentName, any other constraint
+    //as a generic conflict (see DataIntegrityViolations)
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolation(DataIntegrityViolationException ex, WebRequest request) {
+        ApiError apiError = DataIntegrityViolations.toApiError(ex);
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+
+    //412
+    //DepartmentVersionMismatchException: the If-Match ETag is not the current version of the department
+    @ExceptionHandler(DepartmentVersionMismatchException.class)
+    public ResponseEntity<Object> handleDepartmentVersionMismatch(
+            DepartmentVersionMismatchException ex,
+            WebRequest request) {
+        ApiError apiError = new ApiError(HttpStatus.PRECONDITION_FAILED, HttpHeaders.IF_MATCH, ex.getMessage());
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+
+    //404 - the feature is switched off, its endpoints do not exist for now
+    @ExceptionHandler(FeatureDisabledException.class)
+    public ResponseEntity<Object> handleFeatureDisabled(
+            FeatureDisabledException ex,
+            WebRequest request) {
+        ApiError apiError = new ApiError(HttpStatus.NOT_FOUND, "feature", ex.getMessage());
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+
     @ExceptionHandler(DepartmentNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<Object> handleDepartmentNotFoundException(
             DepartmentNotFoundException ex,
             WebRequest request) {
-        System.out.println(request.getDescription(false));
-        ApiError apiError = new ApiError(HttpStatus.NOT_FOUND, request.getDescription(false), ex.getMessage());
+        String description = request.getDescription(false);
+        log.debug("department not found: {}", description);
+        //the usual message -> pre-serialized body, no ApiError/message converter round trip
+        if(notFoundResponseBody.supports(ex)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(notFoundResponseBody.render(description));
+        }
+        ApiError apiError = new ApiError(HttpStatus.NOT_FOUND, description, ex.getMessage());
         return new ResponseEntity<>(apiError, apiError.getStatus());
     }
 
@@ -0,0 +1,52 @@
+package com.springlearn.Springboot.tutorial.error;
+
+import com.springlearn.Springboot.tutorial.entity.ApiError;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+
+import java.util.Objects;
+
+//the 409 body for a DataIntegrityViolationException, shared by both exception handlers
+//only the unique index on the department name (department_name_key, V1__create_department.sql) is a conflict
+//the client can fix by picking another name - any other constraint gets a generic conflict
+@Slf4j
+final class DataIntegrityViolations {
+
+    static final String UNIQUE_NAME = "department_name_key";
+
+    private static final String CONSTRAINT_START = "constraint \"";
+
+    private DataIntegrityViolations() {
+    }
+
+    static ApiError toApiError(DataIntegrityViolationException ex) {
+        String constraint = constraintName(ex);
+        if(UNIQUE_NAME.equals(constraint)) {
+            return new ApiError(HttpStatus.CONFLICT, "departmentName", "Department Name already exists");
+        }
+        log.warn("constraint {} violated: {}", constraint, ex.getMostSpecificCause().getMessage());
+        return new ApiError(HttpStatus.CONFLICT, "department", "Department conflicts with the stored departments");
+    }
+
+    //jpa: hibernate has already read the name out of the postgres error
+    //r2dbc: only the server message, e.g. duplicate key value violates unique constraint "department_name_key"
+    //null when the exception does not say
+    static String constraintName(Throwable ex) {
+        for(Throwable cause = ex; Objects.nonNull(cause); cause = cause.getCause()) {
+            if(cause instanceof ConstraintViolationException) {
+                return ((ConstraintViolationException) cause).getConstraintName();
+            }
+            if(cause instanceof R2dbcDataIntegrityViolationException && Objects.nonNull(cause.getMessage())) {
+                String message = cause.getMessage();
+                int start = message.indexOf(CONSTRAINT_START);
+                int end = start < 0 ? -1 : message.indexOf('"', start + CONSTRAINT_START.length());
+                return end < 0 ? null : message.substring(start + CONSTRAINT_START.length(), end);
+            }
+        }
+        return null;
+    }
+
+}
@@ -2,6 +2,14 @@ package com.springlearn.Springboot.tutorial.error;
 
 public class DepartmentNotFoundException extends Exception {
 
+    public static final String MESSAGE = "Department Not Found";
+
+    //unknown ids and names are a large part of the traffic - every miss throws the same instance
+    //no stack trace (filling it in is most of the cost of an exception) and no suppressed exceptions,
+    //so nothing in it changes and any thread can throw it again and again
+    private static final DepartmentNotFoundException NOT_FOUND =
+            new DepartmentNotFoundException(MESSAGE, null, false, false);
+
     public DepartmentNotFoundException() {
         super();
     }
@@ -23,4 +31,8 @@ public class DepartmentNotFoundException extends Exception {
                                           boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    public static DepartmentNotFoundException notFound() {
+        return NOT_FOUND;
+    }
 }
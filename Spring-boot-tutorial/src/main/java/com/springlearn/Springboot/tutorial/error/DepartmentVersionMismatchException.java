@@ -0,0 +1,10 @@
+package com.springlearn.Springboot.tutorial.error;
+
+//thrown when the If-Match version sent with a PUT/DELETE is not the current version of the department
+//unchecked - the client has to fetch the department again, there is nothing the service layer can retry
+public class DepartmentVersionMismatchException extends RuntimeException {
+
+    public DepartmentVersionMismatchException(String message) {
+        super(message);
+    }
+}
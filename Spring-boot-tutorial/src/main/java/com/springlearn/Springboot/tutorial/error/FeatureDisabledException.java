@@ -0,0 +1,10 @@
+package com.springlearn.Springboot.tutorial.error;
+
+//thrown before a handler of a feature that is switched off runs (see config.FeatureInterceptor)
+//unchecked - it comes out of an interceptor, not out of the handler methods
+public class FeatureDisabledException extends RuntimeException {
+
+    public FeatureDisabledException(String message) {
+        super(message);
+    }
+}
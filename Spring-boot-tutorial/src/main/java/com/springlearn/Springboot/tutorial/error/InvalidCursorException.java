@@ -0,0 +1,14 @@
+package com.springlearn.Springboot.tutorial.error;
+
+//thrown when a pagination cursor sent by the client cannot be decoded
+//unchecked - a malformed cursor is a client error, not something the service layer can recover from
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,78 @@
+package com.springlearn.Springboot.tutorial.error;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.entity.ApiError;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+//the 404 ApiError body, already serialized
+//it is the same for every request apart from the uri in errors[0].field and the date in timestamp
+//so it is rendered by jackson once a day around a placeholder, and per request only the escaped uri is copied in
+//  {"status":"NOT_FOUND","timestamp":"2021-06-01","errors":[{"field":"<uri>","message":"Department Not Found"}]}
+//the bytes are exactly what the ObjectMapper would write for new ApiError(NOT_FOUND, uri, message)
+final class NotFoundResponseBody {
+
+    //only letters - jackson writes it as is, so it can be found again in the output
+    private static final String PLACEHOLDER = "URIPLACEHOLDER";
+
+    private final ObjectMapper objectMapper;
+    private final String message;
+
+    //replaced (not modified) at midnight - two threads rendering it at the same time is harmless
+    private volatile Template template;
+
+    NotFoundResponseBody(ObjectMapper objectMapper, String message) {
+        this.objectMapper = objectMapper;
+        this.message = message;
+    }
+
+    boolean supports(DepartmentNotFoundException ex) {
+        return message.equals(ex.getMessage());
+    }
+
+    byte[] render(String field) {
+        Template current = template;
+        if(current == null || System.currentTimeMillis() >= current.validUntil) {
+            current = template = template();
+        }
+        byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(field);
+        byte[] body = new byte[current.prefix.length + quoted.length + current.suffix.length];
+        System.arraycopy(current.prefix, 0, body, 0, current.prefix.length);
+        System.arraycopy(quoted, 0, body, current.prefix.length, quoted.length);
+        System.arraycopy(current.suffix, 0, body, current.prefix.length + quoted.length, current.suffix.length);
+        return body;
+    }
+
+    private Template template() {
+        //the timestamp only keeps the date (@JsonFormat yyyy-MM-dd) - valid until the next midnight
+        long validUntil = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        try {
+            String json = objectMapper.writeValueAsString(new ApiError(HttpStatus.NOT_FOUND, PLACEHOLDER, message));
+            int index = json.indexOf(PLACEHOLDER);
+            return new Template(
+                    json.substring(0, index).getBytes(StandardCharsets.UTF_8),
+                    json.substring(index + PLACEHOLDER.length()).getBytes(StandardCharsets.UTF_8),
+                    validUntil);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not serialize the not found body", e);
+        }
+    }
+
+    private static final class Template {
+        private final byte[] prefix;
+        private final byte[] suffix;
+        private final long validUntil;
+
+        private Template(byte[] prefix, byte[] suffix, long validUntil) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.validUntil = validUntil;
+        }
+    }
+
+}
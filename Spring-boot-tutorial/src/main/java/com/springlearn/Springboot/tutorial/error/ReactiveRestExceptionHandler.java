@@ -0,0 +1,141 @@
+package com.springlearn.Springboot.tutorial.error;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.entity.ApiError;
+import com.springlearn.Springboot.tutorial.entity.FieldValidationError;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+//CustomRestExceptionHandler for the reactive profile - the same exceptions end up as the same ApiError bodies
+//only the webflux flavours of the binding/input exceptions differ
+@RestControllerAdvice
+@Profile("reactive")
+public class ReactiveRestExceptionHandler {
+
+    private final NotFoundResponseBody notFoundResponseBody;
+
+    public ReactiveRestExceptionHandler(ObjectMapper objectMapper) {
+        this.notFoundResponseBody = new NotFoundResponseBody(objectMapper, DepartmentNotFoundException.MESSAGE);
+    }
+
+    //400
+    //WebExchangeBindException: webflux version of MethodArgumentNotValidException (@Valid @RequestBody)
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiError> handleWebExchangeBindException(WebExchangeBindException ex) {
+        List<FieldValidationError> errors = new ArrayList<>();
+
+        for(FieldError error : ex.getBindingResult().getFieldErrors()) {
+            errors.add(new FieldValidationError(error.getField(), error.getDefaultMessage()));
+        }
+        for(ObjectError error : ex.getBindingResult().getGlobalErrors()) {
+            errors.add(new FieldValidationError(error.getObjectName(), error.getDefaultMessage()));
+        }
+
+        return response(new ApiError(HttpStatus.BAD_REQUEST, errors));
+    }
+
+    //ServerWebInputException: path variable/request parameter of the wrong type, or a missing parameter
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ApiError> handleServerWebInputException(ServerWebInputException ex) {
+        String name = parameterName(ex.getMethodParameter());
+
+        if(ex.getCause() instanceof TypeMismatchException) {
+            TypeMismatchException mismatch = (TypeMismatchException) ex.getCause();
+            String error = name + " should be of type " + mismatch.getRequiredType().getName();
+            return response(new ApiError(HttpStatus.BAD_REQUEST, name, error));
+        }
+
+        return response(new ApiError(HttpStatus.BAD_REQUEST, name, ex.getReason()));
+    }
+
+    //ConstraintViolationException: @PathVariable & @RequestParam (method validation of @Validated controllers)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ApiError> handleConstraintViolation(ConstraintViolationException ex) {
+        List<FieldValidationError> errors = new ArrayList<>();
+
+        for(ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            errors.add(new FieldValidationError(violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+
+        return response(new ApiError(HttpStatus.BAD_REQUEST, errors));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiError> handleInvalidCursorException(InvalidCursorException ex) {
+        return response(new ApiError(HttpStatus.BAD_REQUEST, "cursor", ex.getMessage()));
+    }
+
+    //the servlet only parts of the api (multi-get, sparse fieldsets, search)
+    @ExceptionHandler(UnsupportedParameterException.class)
+    public ResponseEntity<ApiError> handleUnsupportedParameterException(UnsupportedParameterException ex) {
+        return response(new ApiError(HttpStatus.BAD_REQUEST, ex.getParameter(), ex.getMessage()));
+    }
+
+    //409
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiError> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        return response(DataIntegrityViolations.toApiError(ex));
+    }
+
+    //412
+    @ExceptionHandler(DepartmentVersionMismatchException.class)
+    public ResponseEntity<ApiError> handleDepartmentVersionMismatch(DepartmentVersionMismatchException ex) {
+        return response(new ApiError(HttpStatus.PRECONDITION_FAILED, HttpHeaders.IF_MATCH, ex.getMessage()));
+    }
+
+    //404 - same field as the servlet handler (WebRequest.getDescription -> "uri=/departments/1")
+    @ExceptionHandler(DepartmentNotFoundException.class)
+    public ResponseEntity<?> handleDepartmentNotFoundException(
+            DepartmentNotFoundException ex,
+            ServerWebExchange exchange) {
+        String description = "uri=" + exchange.getRequest().getPath().value();
+        if(notFoundResponseBody.supports(ex)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(notFoundResponseBody.render(description));
+        }
+        return response(new ApiError(HttpStatus.NOT_FOUND, description, ex.getMessage()));
+    }
+
+    //name as in the request (@PathVariable("id") -> id), like MethodArgumentTypeMismatchException.getName()
+    private static String parameterName(MethodParameter parameter) {
+        if(Objects.isNull(parameter)) {
+            return null;
+        }
+        PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+        if(Objects.nonNull(pathVariable) && !pathVariable.value().isEmpty()) {
+            return pathVariable.value();
+        }
+        RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+        if(Objects.nonNull(requestParam) && !requestParam.value().isEmpty()) {
+            return requestParam.value();
+        }
+        return parameter.getParameterName();
+    }
+
+    private static ResponseEntity<ApiError> response(ApiError apiError) {
+        return new ResponseEntity<>(apiError, apiError.getStatus());
+    }
+
+}
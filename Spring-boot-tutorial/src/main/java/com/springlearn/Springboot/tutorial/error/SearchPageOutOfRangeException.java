@@ -0,0 +1,10 @@
+package com.springlearn.Springboot.tutorial.error;
+
+//thrown when a search page goes past the candidates that are ranked per query (department-search.max-candidates)
+//unchecked - the page is a client error, the same as a malformed cursor
+public class SearchPageOutOfRangeException extends RuntimeException {
+
+    public SearchPageOutOfRangeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.springlearn.Springboot.tutorial.error;
+
+//thrown for a request parameter the reactive profile does not serve (see ReactiveDepartmentController)
+//unchecked - a 400 on that parameter, instead of an answer that silently leaves it out
+public class UnsupportedParameterException extends RuntimeException {
+
+    private final String parameter;
+
+    public UnsupportedParameterException(String parameter, String message) {
+        super(message);
+        this.parameter = parameter;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+}
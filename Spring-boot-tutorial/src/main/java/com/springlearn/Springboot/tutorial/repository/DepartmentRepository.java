@@ -1,15 +1,155 @@
 package com.springlearn.Springboot.tutorial.repository;
 
 import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentKey;
+import com.springlearn.Springboot.tutorial.entity.DepartmentListVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface DepartmentRepository extends JpaRepository<Department, Long> {
+public interface DepartmentRepository extends JpaRepository<Department, Long>, DepartmentRepositoryCustom {
     public List<Department> findByDepartmentNameIgnoreCase(String departmentName);
 
     public Department findByDepartmentName(String departmentName);
 
+    //keyset (seek) pagination - the pageable is only ever used as a LIMIT (page 0), never as an OFFSET
+    //so every page is an index range scan starting right after the last row of the previous page
+    public List<Department> findAllByOrderByDepartmentIdAsc(Pageable pageable);
+
+    public List<Department> findByDepartmentIdGreaterThanOrderByDepartmentIdAsc(Long departmentId, Pageable pageable);
+
+    public List<Department> findAllByOrderByDepartmentNameAscDepartmentIdAsc(Pageable pageable);
+
+    //row value comparison (native, jpql has none) - postgres turns it into a range condition on the
+    //(department_name, department_id) index of V6 and starts the scan right at the cursor
+    //the same predicate spelled out with OR is only a filter, the scan would start at the first name every time
+    @Query(value = "select * from department where (department_name, department_id) > (:departmentName, :departmentId) " +
+            "order by department_name, department_id",
+            nativeQuery = true)
+    public List<Department> findNextPageOrderByDepartmentName(@Param("departmentName") String departmentName,
+                                                              @Param("departmentId") Long departmentId,
+                                                              Pageable pageable);
+
+    //planner statistics instead of count(*) - constant cost, refreshed by autovacuum/analyze
+    //reltuples is -1 for a table that has never been analyzed, hence the greatest()
+    @Query(value = "select greatest(cast(reltuples as bigint), 0) from pg_class where relname = 'department'",
+            nativeQuery = true)
+    public Long estimateDepartmentCount();
+
+    //server side cursor over the whole table for exports
+    //the fetch size makes the postgres driver pull 500 rows per round trip instead of the whole result set,
+    //which only works inside a transaction - callers must be @Transactional and close the stream
+    //read only entities skip the dirty checking snapshot
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select d from Department d")
+    public Stream<Department> streamAll();
+
+    //same server side cursor, only the id and name of every department (to build DepartmentExistenceFilter)
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select d.departmentId as departmentId, d.departmentName as departmentName from Department d")
+    public Stream<DepartmentKey> streamKeys();
+
+    //single DELETE statement, the number of deleted rows tells if the department existed
+    //(deleteById would load the entity first and then delete it)
+    @Modifying
+    @Transactional
+    @Query("delete from Department d where d.departmentId = :departmentId")
+    public int deleteDepartment(@Param("departmentId") Long departmentId);
+
+    //delete only if the department still has the version the client has seen (If-Match)
+    @Modifying
+    @Transactional
+    @Query("delete from Department d where d.departmentId = :departmentId and d.version = :version")
+    public int deleteDepartmentWithVersion(@Param("departmentId") Long departmentId, @Param("version") Long version);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Department d where d.departmentId in :departmentIds")
+    public int deleteDepartments(@Param("departmentIds") Collection<Long> departmentIds);
+
+    //rows inserted or updated since the statistics were last reset, by any session (DepartmentExistenceFilter)
+    //a session reports its writes at most every half a second (before postgres 15 a session that goes idle
+    //reports its last ones with its next transaction, or when it ends) and the counter is null when not tracked
+    @Query(value = "select n_tup_ins + n_tup_upd from pg_stat_user_tables where relname = 'department'",
+            nativeQuery = true)
+    public Long findWriteCount();
+
+    //ETag checks - only the version column is read, no entity is loaded
+    @Query("select d.version from Department d where d.departmentId = :departmentId")
+    public Optional<Long> findVersionById(@Param("departmentId") Long departmentId);
+
+    @Query("select count(d) as count, coalesce(sum(d.departmentId), 0) as idSum, " +
+            "coalesce(sum(d.version), 0) as versionSum from Department d")
+    public DepartmentListVersion findListVersion();
+
+    //search over name, code and address (lower case, as one text) - answered from the trigram index of V5
+    //1. candidates, the same ones for every page of a term:
+    //   - names starting with the term (index of V7), the first :candidates in name order
+    //   - the term is a substring (like %term%) or close to a word of the text (<%, typos), the :candidates
+    //     lowest ids - a term with fewer than :commonMatches matches is read from the trigram index and sorted,
+    //     a common one (e.g. "street") by walking the primary key until :candidates matches are found,
+    //     reading all matches of a common term from the index would read a good part of the table
+    //   matched counts the matches up to :commonMatches (the limit lets the index scan stop there),
+    //   only one of the two id ordered branches returns rows
+    //2. rank: name starts with the term, then term anywhere, then typo matches by word similarity
+    //the term must already be lower case, :pattern and :prefix are the term with its like wildcards escaped
+    @Query(value = "with matched as materialized (" +
+            "  select d.department_id from department d where " + SEARCH_MATCH + " limit :commonMatches) " +
+            "select d.department_id, d.department_name, d.department_address, d.department_code, d.version " +
+            "from ((select " + SEARCH_COLUMNS + " from department d where lower(d.department_name) like :prefix " +
+            "       order by lower(d.department_name), d.department_id limit :candidates) " +
+            "      union " +
+            "      (select " + SEARCH_COLUMNS + " from department d " +
+            "       where d.department_id in (select department_id from matched) " +
+            "       and (select count(*) from matched) < :commonMatches " +
+            "       order by d.department_id limit :candidates) " +
+            "      union " +
+            "      (select " + SEARCH_COLUMNS + " from department d " +
+            "       where (select count(*) from matched) >= :commonMatches and " + SEARCH_MATCH +
+            "       order by d.department_id limit :candidates)) d " +
+            "order by case when lower(d.department_name) like :prefix then 0 " +
+            "              when d.search_text like :pattern then 1 else 2 end, " +
+            "word_similarity(:term, d.search_text) desc, d.department_id " +
+            "limit :limit offset :offset",
+            nativeQuery = true)
+    public List<Department> searchDepartments(@Param("term") String term,
+                                              @Param("pattern") String pattern,
+                                              @Param("prefix") String prefix,
+                                              @Param("candidates") int candidates,
+                                              @Param("commonMatches") int commonMatches,
+                                              @Param("limit") int limit,
+                                              @Param("offset") int offset);
+
+    //threshold of the <% operator for the rest of the current transaction (pg_trgm's default is 0.6)
+    @Query(value = "select set_config('pg_trgm.word_similarity_threshold', :threshold, true)", nativeQuery = true)
+    public String setWordSimilarityThreshold(@Param("threshold") String threshold);
+
+    //the expression of the index in V5__department_search.sql, the planner only uses the index for exactly this
+    String SEARCH_TEXT = "lower(coalesce(d.department_name, '') || ' ' || coalesce(d.department_code, '') || ' ' " +
+            "|| coalesce(d.department_address, ''))";
+
+    String SEARCH_MATCH = "(" + SEARCH_TEXT + " like :pattern or :term <% " + SEARCH_TEXT + ")";
+
+    String SEARCH_COLUMNS = "d.department_id, d.department_name, d.department_address, d.department_code, d.version, " +
+            SEARCH_TEXT + " as search_text";
+
 }
@@ -0,0 +1,32 @@
+package com.springlearn.Springboot.tutorial.repository;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+//queries that spring data cannot derive, implemented in DepartmentRepositoryCustomImpl
+public interface DepartmentRepositoryCustom {
+
+    //one UPDATE ... RETURNING that only sets the given (non null) fields and bumps the version
+    //with an expectedVersion the row is only updated if it still has that version
+    //empty when there is no department with the id (or not with the expected version)
+    public Optional<Department> updateDepartmentFields(Long departmentId,
+                                                       Long expectedVersion,
+                                                       String departmentName,
+                                                       String departmentAddress,
+                                                       String departmentCode);
+
+    //sparse fieldsets - only the given fields (plus id and version) are selected
+    public Optional<DepartmentView> findViewById(Long departmentId, Set<DepartmentField> fields);
+
+    public Optional<DepartmentView> findViewByName(String departmentName, Set<DepartmentField> fields);
+
+    public List<DepartmentView> findViewsByNameIgnoreCase(String departmentName, Set<DepartmentField> fields);
+
+    public List<DepartmentView> findAllViews(Set<DepartmentField> fields);
+
+}
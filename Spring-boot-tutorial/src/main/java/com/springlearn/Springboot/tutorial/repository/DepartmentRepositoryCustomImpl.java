@@ -0,0 +1,137 @@
+package com.springlearn.Springboot.tutorial.repository;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+
+//picked up by spring data because of the <fragment interface>Impl name and mixed into DepartmentRepository
+public class DepartmentRepositoryCustomImpl implements DepartmentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //partial update in a single round trip
+    //1. the SET clause only has the columns that are changed, untouched columns are not rewritten
+    //2. RETURNING hands back the updated row, so there is no SELECT before or after the UPDATE
+    //3. no row returned -> no department with that id (or its version is not the expected one)
+    //the version is always bumped and, when expected, checked in the WHERE clause - optimistic locking
+    //without reading the row first
+    //the returned department is mapped as an entity; if the same department was already loaded in the
+    //current persistence context hibernate hands back that (older) instance, so call it in its own transaction
+    @Override
+    @Transactional
+    public Optional<Department> updateDepartmentFields(Long departmentId,
+                                                       Long expectedVersion,
+                                                       String departmentName,
+                                                       String departmentAddress,
+                                                       String departmentCode) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        if(Objects.nonNull(departmentName)) {
+            columns.put("department_name", departmentName);
+        }
+        if(Objects.nonNull(departmentAddress)) {
+            columns.put("department_address", departmentAddress);
+        }
+        if(Objects.nonNull(departmentCode)) {
+            columns.put("department_code", departmentCode);
+        }
+
+        //nothing to change - a plain primary key read answers both the 404 and the response body
+        if(columns.isEmpty()) {
+            return Optional.ofNullable(entityManager.find(Department.class, departmentId))
+                    .filter(department -> Objects.isNull(expectedVersion)
+                            || expectedVersion.equals(department.getVersion()));
+        }
+
+        StringJoiner set = new StringJoiner(", ");
+        columns.keySet().forEach(column -> set.add(column + " = :" + column));
+        set.add("version = version + 1");
+
+        String where = " where department_id = :department_id";
+        if(Objects.nonNull(expectedVersion)) {
+            where = where + " and version = :version";
+        }
+
+        Query update = entityManager.createNativeQuery(
+                "update department set " + set + where + " returning *",
+                Department.class);
+        columns.forEach(update::setParameter);
+        update.setParameter("department_id", departmentId);
+        if(Objects.nonNull(expectedVersion)) {
+            update.setParameter("version", expectedVersion);
+        }
+
+        List<?> updated = update.getResultList();
+        return updated.stream().findFirst().map(Department.class::cast);
+    }
+
+    @Override
+    public Optional<DepartmentView> findViewById(Long departmentId, Set<DepartmentField> fields) {
+        return findViews(fields, " where d.departmentId = :value", departmentId, 1).stream().findFirst();
+    }
+
+    @Override
+    public Optional<DepartmentView> findViewByName(String departmentName, Set<DepartmentField> fields) {
+        return findViews(fields, " where d.departmentName = :value", departmentName, 1).stream().findFirst();
+    }
+
+    //upper() on both sides, like the derived findByDepartmentNameIgnoreCase (department_name_upper_idx)
+    @Override
+    public List<DepartmentView> findViewsByNameIgnoreCase(String departmentName, Set<DepartmentField> fields) {
+        return findViews(fields, " where upper(d.departmentName) = upper(:value)", departmentName, 0);
+    }
+
+    @Override
+    public List<DepartmentView> findAllViews(Set<DepartmentField> fields) {
+        return findViews(fields, "", null, 0);
+    }
+
+    //sparse fieldset query
+    //1. the select list only has the requested columns, plus the id and version (primary key and ETag)
+    //2. the columns are read as scalars - hibernate creates no entity, so nothing goes into the persistence
+    //   context and there is no dirty checking snapshot to take (or compare at flush)
+    //a where clause has at most one parameter, :value
+    private List<DepartmentView> findViews(Set<DepartmentField> fields, String where, Object value, int maxResults) {
+        StringJoiner select = new StringJoiner(", ", "select ", " from Department d");
+        select.add("d.departmentId").add("d.version");
+        for(DepartmentField field : fields) {
+            if(field != DepartmentField.DEPARTMENT_ID) {
+                select.add("d." + field.getProperty());
+            }
+        }
+
+        TypedQuery<Object[]> query = entityManager.createQuery(select + where, Object[].class);
+        if(Objects.nonNull(value)) {
+            query.setParameter("value", value);
+        }
+        if(maxResults > 0) {
+            query.setMaxResults(maxResults);
+        }
+
+        List<Object[]> rows = query.getResultList();
+        List<DepartmentView> views = new ArrayList<>(rows.size());
+        for(Object[] row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            int column = 2;
+            for(DepartmentField field : fields) {
+                values.put(field.getProperty(), field == DepartmentField.DEPARTMENT_ID ? row[0] : row[column++]);
+            }
+            views.add(new DepartmentView((Long) row[0], (Long) row[1], values));
+        }
+        return views;
+    }
+}
@@ -0,0 +1,9 @@
+package com.springlearn.Springboot.tutorial.repository;
+
+import com.springlearn.Springboot.tutorial.entity.FeatureFlag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FeatureFlagRepository extends JpaRepository<FeatureFlag, String> {
+}
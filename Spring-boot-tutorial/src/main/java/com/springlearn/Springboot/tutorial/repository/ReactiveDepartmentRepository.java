@@ -0,0 +1,76 @@
+package com.springlearn.Springboot.tutorial.repository;
+
+import com.springlearn.Springboot.tutorial.entity.DepartmentRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+//r2dbc counterpart of DepartmentRepository for the reactive profile, same table and the same queries in sql
+//works on DepartmentRow, not on the jpa entity
+//only created when r2dbc is switched on (the r2dbc auto configuration is excluded outside the reactive profile)
+@Repository
+public interface ReactiveDepartmentRepository extends R2dbcRepository<DepartmentRow, Long> {
+
+    public Flux<DepartmentRow> findByDepartmentNameIgnoreCase(String departmentName);
+
+    public Mono<DepartmentRow> findByDepartmentName(String departmentName);
+
+    //keyset (seek) pagination, see DepartmentRepository
+    @Query("select * from department order by department_id limit :limit")
+    public Flux<DepartmentRow> findFirstPageOrderByDepartmentId(@Param("limit") int limit);
+
+    @Query("select * from department where department_id > :departmentId order by department_id limit :limit")
+    public Flux<DepartmentRow> findNextPageOrderByDepartmentId(@Param("departmentId") Long departmentId,
+                                                           @Param("limit") int limit);
+
+    @Query("select * from department order by department_name, department_id limit :limit")
+    public Flux<DepartmentRow> findFirstPageOrderByDepartmentName(@Param("limit") int limit);
+
+    @Query("select * from department where (department_name, department_id) > (:departmentName, :departmentId) " +
+            "order by department_name, department_id limit :limit")
+    public Flux<DepartmentRow> findNextPageOrderByDepartmentName(@Param("departmentName") String departmentName,
+                                                             @Param("departmentId") Long departmentId,
+                                                             @Param("limit") int limit);
+
+    @Query("select greatest(cast(reltuples as bigint), 0) from pg_class where relname = 'department'")
+    public Mono<Long> estimateDepartmentCount();
+
+    //only the given (non null) fields change, the version check is skipped when no version is given
+    //one UPDATE ... RETURNING, no row -> the department does not exist or has another version
+    @Query("update department set " +
+            "department_name = coalesce(:departmentName, department_name), " +
+            "department_address = coalesce(:departmentAddress, department_address), " +
+            "department_code = coalesce(:departmentCode, department_code), " +
+            "version = version + 1 " +
+            "where department_id = :departmentId " +
+            "and (cast(:version as bigint) is null or version = :version) " +
+            "returning *")
+    public Mono<DepartmentRow> updateDepartmentFields(@Param("departmentId") Long departmentId,
+                                                   @Param("version") Long version,
+                                                   @Param("departmentName") String departmentName,
+                                                   @Param("departmentAddress") String departmentAddress,
+                                                   @Param("departmentCode") String departmentCode);
+
+    @Modifying
+    @Query("delete from department where department_id = :departmentId")
+    public Mono<Integer> deleteDepartment(@Param("departmentId") Long departmentId);
+
+    @Modifying
+    @Query("delete from department where department_id = :departmentId and version = :version")
+    public Mono<Integer> deleteDepartmentWithVersion(@Param("departmentId") Long departmentId,
+                                                     @Param("version") Long version);
+
+    @Modifying
+    @Query("delete from department where department_id in (:departmentIds)")
+    public Mono<Integer> deleteDepartments(@Param("departmentIds") Collection<Long> departmentIds);
+
+    @Query("select version from department where department_id = :departmentId")
+    public Mono<Long> findVersionById(@Param("departmentId") Long departmentId);
+
+}
@@ -0,0 +1,116 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//fixed size bloom filter of 64 bit keys
+//mightContain -> false means the key was never put, true means it probably was (false positive rate fpp)
+//sized for expectedInsertions keys: bits = -n ln(fpp) / ln(2)^2, hash functions = bits / n * ln(2)
+//the k bit positions come from one 64 bit hash (h1 + i * h2, Kirsch-Mitzenmacher), no k separate hash functions
+//puts and reads are lock free - a key is never removed, only a new filter forgets it
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final LongAdder insertions = new LongAdder();
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(words);
+        this.bitSize = words * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+        this.expectedInsertions = n;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    void put(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for(int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1 + i * h2);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            //only write when the bit is not set yet - most puts of a warm filter are reads only
+            if((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, add) -> current | add);
+            }
+        }
+        insertions.increment();
+    }
+
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for(int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1 + i * h2);
+            if((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getBitSize() {
+        return bitSize;
+    }
+
+    int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    long getInsertions() {
+        return insertions.sum();
+    }
+
+    //false positive rate as the filter is filled now: (share of bits set) ^ hash functions
+    //grows past the configured rate once more keys than expectedInsertions were put
+    double estimatedFalsePositiveRate() {
+        long set = 0;
+        for(int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bitSize, hashFunctions);
+    }
+
+    private long index(int combined) {
+        //flip negative values instead of abs (abs(MIN_VALUE) is negative)
+        return (combined < 0 ? ~combined : combined) % bitSize;
+    }
+
+    //64 bit key of a string - FNV-1a over the utf-8 bytes
+    static long key(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for(byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    //murmur3 finalizer - spreads sequential ids over all 64 bits
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93e185a624fL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+}
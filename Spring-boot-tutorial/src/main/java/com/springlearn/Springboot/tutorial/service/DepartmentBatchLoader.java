@@ -0,0 +1,199 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import com.springlearn.Springboot.tutorial.config.MicroBatchProperties;
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//micro-batching of the by-id lookups ("dataloader" style)
+//concurrent lookups of different ids are collected and answered by one IN query instead of a query each
+//1. the first lookup opens a batch, lookups that come in within window-micros (or until max-batch-size) join it
+//2. a batch runs on one of max-concurrent-batches threads - while all of them are busy the next batch keeps
+//   collecting, so under load the batches get bigger instead of the connection pool getting more waiters
+//3. every caller gets its own row, or an empty Optional when the id does not exist
+//the callers keep no connection while they wait (the datasource is lazy, see DataSourceConfig)
+//the batches are read on the primary - what they find goes into the by-id cache (see DepartmentServiceImpl)
+//metrics: department.microbatch.size -> lookups per batch (count = IN queries)
+@Component
+@Profile("!reactive")
+@Slf4j
+public class DepartmentBatchLoader {
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private MicroBatchProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final BlockingQueue<Lookup> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread dispatcher;
+    private ExecutorService executor;
+    private Semaphore batches;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() {
+        if(!properties.isEnabled()) {
+            return;
+        }
+        batchSizes = DistributionSummary.builder("department.microbatch.size")
+                .description("lookups answered by one IN query")
+                .register(meterRegistry);
+        batches = new Semaphore(properties.getMaxConcurrentBatches());
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getMaxConcurrentBatches(), runnable -> {
+            Thread thread = new Thread(runnable, "department-batch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        dispatcher = new Thread(this::dispatch, "department-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if(!running) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        executor.shutdown();
+        List<Lookup> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        fail(pending, new IllegalStateException("department batch loader stopped"));
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    public Optional<Department> load(Long departmentId) {
+        Lookup lookup = new Lookup(departmentId);
+        queue.add(lookup);
+        try {
+            return lookup.result.get(properties.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new QueryTimeoutException("department " + departmentId + " not loaded within "
+                    + properties.getTimeoutMillis() + " ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while loading department " + departmentId, ex);
+        } catch (ExecutionException ex) {
+            if(ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void dispatch() {
+        while(running) {
+            List<Lookup> batch = new ArrayList<>();
+            try {
+                batch.add(queue.take());
+                collect(batch);
+                //more lookups may have queued up while every batch thread was busy
+                batches.acquire();
+                queue.drainTo(batch, properties.getMaxBatchSize() - batch.size());
+                executor.execute(() -> {
+                    try {
+                        run(batch);
+                    } finally {
+                        batches.release();
+                    }
+                });
+            } catch (InterruptedException ex) {
+                fail(batch, new IllegalStateException("department batch loader stopped"));
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("department batch could not be dispatched", ex);
+                fail(batch, ex);
+            }
+        }
+    }
+
+    //lookups that come in until the window of the first one is over, or the batch is full
+    private void collect(List<Lookup> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(properties.getWindowMicros());
+        while(batch.size() < properties.getMaxBatchSize()) {
+            long left = deadline - System.nanoTime();
+            Lookup next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+            if(next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void run(List<Lookup> batch) {
+        Set<Long> ids = new LinkedHashSet<>();
+        batch.forEach(lookup -> ids.add(lookup.departmentId));
+        try {
+            Map<Long, Department> found = new HashMap<>();
+            //read-write transaction on purpose: the repository's own one is read only and would go to a replica
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for(Department department : departmentRepository.findAllById(ids)) {
+                    found.put(department.getDepartmentId(), department);
+                }
+            });
+            batchSizes.record(batch.size());
+            for(Lookup lookup : batch) {
+                lookup.result.complete(Optional.ofNullable(found.get(lookup.departmentId)));
+            }
+        } catch (RuntimeException ex) {
+            fail(batch, ex);
+        }
+    }
+
+    private static void fail(List<Lookup> batch, RuntimeException ex) {
+        batch.forEach(lookup -> lookup.result.completeExceptionally(ex));
+    }
+
+    private static final class Lookup {
+        private final Long departmentId;
+        private final CompletableFuture<Optional<Department>> result = new CompletableFuture<>();
+
+        private Lookup(Long departmentId) {
+            this.departmentId = departmentId;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import com.springlearn.Springboot.tutorial.entity.DepartmentSort;
+import com.springlearn.Springboot.tutorial.error.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//position of the last row a client has seen in a keyset paginated listing
+//encoded as url-safe base64 of "<sort>:<lastId>[:<lastName>]" so clients treat it as an opaque token
+//departmentId is always part of the cursor as the tie breaker for sorts on non unique columns
+final class DepartmentCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final DepartmentSort sort;
+    private final Long lastId;
+    private final String lastName;
+
+    DepartmentCursor(DepartmentSort sort, Long lastId, String lastName) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastName = lastName;
+    }
+
+    DepartmentSort getSort() {
+        return sort;
+    }
+
+    Long getLastId() {
+        return lastId;
+    }
+
+    String getLastName() {
+        return lastName;
+    }
+
+    String encode() {
+        String raw = sort.name() + SEPARATOR + lastId;
+        if(sort == DepartmentSort.NAME) {
+            raw = raw + SEPARATOR + lastName;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static DepartmentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            //limit 3 - the name is the last part so it may contain the separator itself
+            String[] parts = raw.split(SEPARATOR, 3);
+            DepartmentSort sort = DepartmentSort.valueOf(parts[0]);
+            Long lastId = Long.valueOf(parts[1]);
+
+            if(sort == DepartmentSort.NAME) {
+                if(parts.length != 3) {
+                    throw new InvalidCursorException("Invalid cursor");
+                }
+                return new DepartmentCursor(sort, lastId, parts[2]);
+            }
+            return new DepartmentCursor(sort, lastId, null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            throw new InvalidCursorException("Invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import com.springlearn.Springboot.tutorial.config.DepartmentFilterProperties;
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentKey;
+import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+//negative cache in front of the by-id and by-name lookups
+//bloom filters of every department id and (lower case) name - a key that is not in the filter does not exist,
+//so the lookup can answer 404 without a database round trip; a key that is in it is looked up as before
+//1. built at startup from a streaming scan of the table, until then (or if that fails) every key passes
+//2. saves and updates add their id and name once they are committed
+//3. a bloom filter cannot remove keys - deleted ids and old names pass (and miss in the database)
+//   until the next rebuild, which also resizes the filters to the current number of departments
+//4. rows written past this jvm (other nodes, the reactive profile, scripts) are noticed through the
+//   inserted + updated rows counter of postgres (pg_stat_user_tables), polled every change-poll-interval-millis:
+//   when it moved more than this jvm has written, the filters are stale - every key passes until the next
+//   rebuild, which runs right away but not more often than min-rebuild-interval-millis
+//   an id cannot serve as a watermark instead - ids come in blocks of 50 per node, another node may insert
+//   an id lower than the highest one in the filter
+//the numbers are reported by /actuator/departmentfilter
+@Component
+@Profile("!reactive")
+@Slf4j
+public class DepartmentExistenceFilter {
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DepartmentFilterProperties properties;
+
+    //replaced by a rebuild, read without locking
+    private volatile Filters current;
+
+    //while a rebuild scans the table, committed writes go into the filters being built too
+    //(the scan may have read past their rows already); guarded by lock, like swapping current
+    private Filters building;
+    private final Object lock = new Object();
+
+    //lookups answered without the database, and lookups that passed but found nothing (false positives + deletes)
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder passedMisses = new LongAdder();
+    private final LongAdder deletesSinceBuild = new LongAdder();
+
+    //departments this jvm has written (added), and both counters at the time the filters were built
+    private final LongAdder ownWrites = new LongAdder();
+    private long writeCountAtBuild = -1;
+    private long ownWritesAtBuild;
+    private volatile boolean stale;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if(properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${department-filter.rebuild-interval-millis:3600000}",
+            initialDelayString = "${department-filter.rebuild-interval-millis:3600000}")
+    public void scheduledRebuild() {
+        if(properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${department-filter.change-poll-interval-millis:5000}",
+            initialDelayString = "${department-filter.change-poll-interval-millis:5000}")
+    public synchronized void pollChanges() {
+        Filters filters = current;
+        if(!properties.isEnabled() || Objects.isNull(filters) || writeCountAtBuild < 0) {
+            return;
+        }
+        try {
+            Long writeCount = writeCount();
+            if(Objects.isNull(writeCount)) {
+                return;
+            }
+            //a counter lower than at the build -> the statistics were reset, nothing can be told from it
+            long foreignWrites = (writeCount - writeCountAtBuild) - (ownWrites.sum() - ownWritesAtBuild);
+            if(writeCount < writeCountAtBuild || foreignWrites > 0) {
+                if(!stale) {
+                    log.info("department filter is stale, {} departments were written by others", foreignWrites);
+                }
+                stale = true;
+            }
+            if(stale && System.currentTimeMillis() - filters.builtAt.toEpochMilli() >= properties.getMinRebuildIntervalMillis()) {
+                rebuild();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("department filter could not check for changes", ex);
+        }
+    }
+
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        try {
+            //sized for the current count (planner estimate, no count(*)) plus headroom for new departments
+            long estimate = Objects.requireNonNullElse(departmentRepository.estimateDepartmentCount(), 0L);
+            long expected = Math.max(properties.getMinimumCapacity(), (long) (estimate * properties.getHeadroom()));
+            Filters filters = new Filters(expected, properties.getFalsePositiveRate());
+
+            //before the scan - a write in between is in the scan, or is noticed by the next poll
+            //(then there is one rebuild too many, never a missing key)
+            long ownWritesBefore = ownWrites.sum();
+            Long writeCountBefore = writeCount();
+            synchronized(lock) {
+                building = filters;
+            }
+            //read-write transaction on purpose: read only ones go to a replica, which may not have
+            //the latest inserts yet - and a missing id would turn into a wrong 404
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                try(Stream<DepartmentKey> keys = departmentRepository.streamKeys()) {
+                    keys.forEach(key -> filters.put(key.getDepartmentId(), key.getDepartmentName()));
+                }
+            });
+            synchronized(lock) {
+                filters.builtAt = Instant.now();
+                filters.buildMillis = System.currentTimeMillis() - started;
+                current = filters;
+                building = null;
+            }
+            writeCountAtBuild = Objects.requireNonNullElse(writeCountBefore, -1L);
+            ownWritesAtBuild = ownWritesBefore;
+            stale = false;
+            deletesSinceBuild.reset();
+            log.info("department filter built with {} departments in {} ms", filters.ids.getInsertions(), filters.buildMillis);
+        } catch (RuntimeException ex) {
+            synchronized(lock) {
+                building = null;
+            }
+            //keep the previous filters (or none - every key passes) rather than failing lookups
+            log.warn("department filter could not be built, keeping the previous one", ex);
+        }
+    }
+
+    //false -> the department does not exist
+    public boolean mightContainId(Long departmentId) {
+        Filters filters = current;
+        if(Objects.isNull(filters) || stale || !properties.isEnabled() || Objects.isNull(departmentId)) {
+            return true;
+        }
+        return counted(filters.ids.mightContain(departmentId));
+    }
+
+    public boolean mightContainName(String departmentName) {
+        Filters filters = current;
+        if(Objects.isNull(filters) || stale || !properties.isEnabled() || Objects.isNull(departmentName)) {
+            return true;
+        }
+        return counted(filters.names.mightContain(nameKey(departmentName)));
+    }
+
+    //a lookup the filter let through did not find the department
+    public void passedButNotFound() {
+        passedMisses.increment();
+    }
+
+    public void added(Department department) {
+        added(Collections.singletonList(department));
+    }
+
+    //inside a transaction the departments are added after the commit - a rebuild that starts
+    //in between reads them from the table, one that started before gets them through building
+    public void added(Collection<Department> departments) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addNow(departments);
+                }
+            });
+        } else {
+            addNow(departments);
+        }
+    }
+
+    public void deleted(int count) {
+        deletesSinceBuild.add(count);
+    }
+
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Filters filters = current;
+        result.put("enabled", properties.isEnabled());
+        result.put("built", Objects.nonNull(filters));
+        result.put("stale", stale);
+        if(Objects.nonNull(filters)) {
+            result.put("builtAt", filters.builtAt.toString());
+            result.put("buildMillis", filters.buildMillis);
+            result.put("ids", statistics(filters.ids));
+            result.put("names", statistics(filters.names));
+        }
+        result.put("deletesSinceBuild", deletesSinceBuild.sum());
+        result.put("definiteMisses", definiteMisses.sum());
+        result.put("passedMisses", passedMisses.sum());
+        return result;
+    }
+
+    private boolean counted(boolean mightContain) {
+        if(!mightContain) {
+            definiteMisses.increment();
+        }
+        return mightContain;
+    }
+
+    private void addNow(Collection<Department> departments) {
+        ownWrites.add(departments.size());
+        synchronized(lock) {
+            for(Department department : departments) {
+                if(Objects.nonNull(current)) {
+                    current.put(department.getDepartmentId(), department.getDepartmentName());
+                }
+                if(Objects.nonNull(building)) {
+                    building.put(department.getDepartmentId(), department.getDepartmentName());
+                }
+            }
+        }
+    }
+
+    //from the primary (read-write transaction), a replica has statistics of its own
+    private Long writeCount() {
+        return new TransactionTemplate(transactionManager).execute(status -> departmentRepository.findWriteCount());
+    }
+
+    private static Map<String, Object> statistics(BloomFilter filter) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("expectedInsertions", filter.getExpectedInsertions());
+        result.put("insertions", filter.getInsertions());
+        result.put("bits", filter.getBitSize());
+        result.put("bytes", filter.getBitSize() / 8);
+        result.put("hashFunctions", filter.getHashFunctions());
+        result.put("falsePositiveRate", filter.getFalsePositiveRate());
+        result.put("estimatedFalsePositiveRate", filter.estimatedFalsePositiveRate());
+        return result;
+    }
+
+    //fetchOneDepartmentByName matches the exact name, lower case in the filter is just as safe
+    //(equal names have equal lower case names) and keeps the filter usable for case insensitive lookups
+    private static long nameKey(String departmentName) {
+        return BloomFilter.key(departmentName.toLowerCase(Locale.ROOT));
+    }
+
+    private static final class Filters {
+        private final BloomFilter ids;
+        private final BloomFilter names;
+        private Instant builtAt;
+        private long buildMillis;
+
+        private Filters(long expectedInsertions, double falsePositiveRate) {
+            this.ids = new BloomFilter(expectedInsertions, falsePositiveRate);
+            this.names = new BloomFilter(expectedInsertions, falsePositiveRate);
+        }
+
+        private void put(Long departmentId, String departmentName) {
+            if(Objects.nonNull(departmentId)) {
+                ids.put(departmentId);
+            }
+            if(Objects.nonNull(departmentName)) {
+                names.put(nameKey(departmentName));
+            }
+        }
+    }
+
+}
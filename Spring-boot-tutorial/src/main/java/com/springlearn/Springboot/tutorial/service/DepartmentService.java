@@ -1,23 +1,62 @@
 package com.springlearn.Springboot.tutorial.service;
 
 import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentListVersion;
+import com.springlearn.Springboot.tutorial.entity.DepartmentMultiGet;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.DepartmentSearchResult;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
 import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
 import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface DepartmentService {
     public Department saveDepartment(Department department);
 
+    public List<Department> saveDepartments(List<Department> departments);
+
     public List<Department> fetchDepartmentList();
 
+    public List<DepartmentView> fetchDepartmentList(Set<DepartmentField> fields);
+
+    public DepartmentPage fetchDepartmentPage(int size, String sort, String cursor, boolean includeTotal);
+
+    public void exportDepartments(Consumer<Department> consumer);
+
     public Department fetchDepartmentById(Long departmentId) throws DepartmentNotFoundException;
 
+    public DepartmentView fetchDepartmentById(Long departmentId, Set<DepartmentField> fields)
+            throws DepartmentNotFoundException;
+
+    public DepartmentMultiGet fetchDepartmentsByIds(List<Long> departmentIds);
+
+    public Long fetchDepartmentVersion(Long departmentId) throws DepartmentNotFoundException;
+
+    public DepartmentListVersion fetchDepartmentListVersion();
+
     public void deleteDepartmentById(Long departmentId) throws DepartmentNotFoundException;
 
+    public void deleteDepartmentById(Long departmentId, Long expectedVersion) throws DepartmentNotFoundException;
+
+    public int deleteDepartmentsByIds(List<Long> departmentIds);
+
     public Department updateDepartment(Long departmentId, UpdatableDepartment department) throws DepartmentNotFoundException;
 
+    public Department updateDepartment(Long departmentId, UpdatableDepartment department, Long expectedVersion)
+            throws DepartmentNotFoundException;
+
     public List<Department> fetchDepartmentByName(String departmentName);
 
+    public List<DepartmentView> fetchDepartmentByName(String departmentName, Set<DepartmentField> fields);
+
     public Department fetchOneDepartmentByName(String departmentName) throws DepartmentNotFoundException;
+
+    public DepartmentView fetchOneDepartmentByName(String departmentName, Set<DepartmentField> fields)
+            throws DepartmentNotFoundException;
+
+    public DepartmentSearchResult searchDepartments(String query, int page, int size);
 }
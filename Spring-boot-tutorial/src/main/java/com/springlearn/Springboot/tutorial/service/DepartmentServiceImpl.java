@@ -1,19 +1,69 @@
 package com.springlearn.Springboot.tutorial.service;
 
+import com.springlearn.Springboot.tutorial.config.CacheConfig;
+import com.springlearn.Springboot.tutorial.config.DepartmentSearchProperties;
 import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentListVersion;
+import com.springlearn.Springboot.tutorial.entity.DepartmentMultiGet;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.DepartmentSearchResult;
+import com.springlearn.Springboot.tutorial.entity.DepartmentSort;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
 import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
 import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import com.springlearn.Springboot.tutorial.error.SearchPageOutOfRangeException;
 import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
 import javax.swing.text.html.Option;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+//jpa/jdbc implementation, not created in the reactive profile (see ReactiveDepartmentServiceImpl)
+//transaction boundaries
+//1. fetch* -> @Transactional(readOnly = true): hibernate flush mode MANUAL and read only entities
+//   (no dirty checking snapshot), and they may run on a replica (see DataSourceConfig) - except the reads
+//   that fill a cache (fetchDepartmentById, fetchOneDepartmentByName, fetchDepartmentsByIds) and the version
+//   of the If-None-Match checks: a replica may not have the latest update yet, and its copy would be served
+//   from the cache until it expires - they run on the primary (readFromPrimary)
+//2. every write -> one @Transactional, together with the reads it needs (e.g. after a failed conditional write)
+//3. the connection is taken at the first statement and given back at the commit - a method that is
+//   answered from the cache or the existence filter uses none (open-in-view is off)
 @Service
+@Profile("!reactive")
 @Slf4j
 public class DepartmentServiceImpl implements DepartmentService{
 
@@ -21,92 +71,485 @@ public class DepartmentServiceImpl implements DepartmentService{
     @Autowired
     private DepartmentRepository departmentRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    //ids and names that do not exist are answered with 404 without a query (see DepartmentExistenceFilter)
+    @Autowired
+    private DepartmentExistenceFilter departmentExistenceFilter;
+
+    //concurrent lookups of different ids share one IN query when micro-batch.enabled (see DepartmentBatchLoader)
+    @Autowired
+    private DepartmentBatchLoader departmentBatchLoader;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DepartmentSearchProperties searchProperties;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    //ids per IN list of a multi-get
+    @Value("${multi-get.chunk-size:500}")
+    private int multiGetChunkSize;
+
+    //concurrent lookups of the same id/name (a popular department right after its cache entry is gone)
+    //share one query and its result or DepartmentNotFoundException, see SingleFlight
+    @Value("${single-flight.timeout-millis:2000}")
+    private long singleFlightTimeoutMillis;
+
+    private SingleFlight<Long, Department, DepartmentNotFoundException> departmentsById;
+    private SingleFlight<String, Department, DepartmentNotFoundException> departmentsByName;
+
+    @PostConstruct
+    public void createSingleFlights() {
+        departmentsById = new SingleFlight<>("fetchDepartmentById",
+                DepartmentNotFoundException.class, singleFlightTimeoutMillis, meterRegistry);
+        departmentsByName = new SingleFlight<>("fetchOneDepartmentByName",
+                DepartmentNotFoundException.class, singleFlightTimeoutMillis, meterRegistry);
+    }
+
+    //cache invalidation
+    //departments by id are put/evicted by key, the write methods know the id
+    //departments by name are evicted completely on update/delete - an update can rename a department
+    //and the old name is not known here; writes are rare compared to reads so refilling is cheap
+    //a save only creates (the id is ignored, changes go through updateDepartment with its version check),
+    //and not found lookups are never cached, so a new department cannot make a by-name entry stale
     @Override
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.DEPARTMENTS, key = "#result.departmentId")
     public Department saveDepartment(Department department) {
         log.info("inside SaveDepartment of DepartmentService");
-        return departmentRepository.save(department);
+        department.setDepartmentId(null);
+        Department saved = departmentRepository.save(department);
+        departmentExistenceFilter.added(saved);
+        return saved;
+    }
+
+    //bulk insert in one transaction
+    //departments are persisted a jdbc batch at a time, then flushed (one batched insert statement) and cleared
+    //so the persistence context holds at most one batch, however many departments are sent
+    //ids sent by the client are ignored - this endpoint only creates, so there is nothing cached to invalidate
+    @Override
+    @Transactional
+    public List<Department> saveDepartments(List<Department> departments) {
+        log.info("inside saveDepartments of DepartmentService");
+        List<Department> saved = new ArrayList<>(departments.size());
+
+        for(int from = 0; from < departments.size(); from += batchSize) {
+            List<Department> batch = departments.subList(from, Math.min(from + batchSize, departments.size()));
+            batch.forEach(department -> department.setDepartmentId(null));
+
+            saved.addAll(departmentRepository.saveAll(batch));
+            departmentRepository.flush();
+            entityManager.clear();
+        }
+
+        departmentExistenceFilter.added(saved);
+        return saved;
     }
 
+    //read only transactions run on a read replica when one is configured (see DataSourceConfig)
     @Override
+    @Transactional(readOnly = true)
     public List<Department> fetchDepartmentList() {
         return departmentRepository.findAll();
     }
 
+    //sparse fieldsets (fields=...) - only the requested columns are selected, no entities are loaded
+    @Override
+    @Transactional(readOnly = true)
+    public List<DepartmentView> fetchDepartmentList(Set<DepartmentField> fields) {
+        return departmentRepository.findAllViews(fields);
+    }
+
+    //keyset pagination
+    //1. read one row more than the page size - if it comes back there is a next page
+    //2. the cursor of the next page is the sort key of the last row that is returned
+    //the cursor carries its own sort, so a follow-up request cannot switch the sort half way through a listing
+    @Override
+    @Transactional(readOnly = true)
+    public DepartmentPage fetchDepartmentPage(int size, String sort, String cursor, boolean includeTotal) {
+        DepartmentCursor after = Objects.isNull(cursor) ? null : DepartmentCursor.decode(cursor);
+        DepartmentSort departmentSort = Objects.isNull(after) ? DepartmentSort.fromProperty(sort) : after.getSort();
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Department> rows;
+        if(departmentSort == DepartmentSort.NAME) {
+            rows = Objects.isNull(after)
+                    ? departmentRepository.findAllByOrderByDepartmentNameAscDepartmentIdAsc(limit)
+                    : departmentRepository.findNextPageOrderByDepartmentName(after.getLastName(), after.getLastId(), limit);
+        } else {
+            rows = Objects.isNull(after)
+                    ? departmentRepository.findAllByOrderByDepartmentIdAsc(limit)
+                    : departmentRepository.findByDepartmentIdGreaterThanOrderByDepartmentIdAsc(after.getLastId(), limit);
+        }
+
+        String nextCursor = null;
+        if(rows.size() > size) {
+            rows = rows.subList(0, size);
+            Department last = rows.get(size - 1);
+            nextCursor = new DepartmentCursor(departmentSort, last.getDepartmentId(), last.getDepartmentName()).encode();
+        }
+
+        Long approximateTotal = includeTotal ? departmentRepository.estimateDepartmentCount() : null;
+
+        return DepartmentPage.builder()
+                .content(rows)
+                .nextCursor(nextCursor)
+                .approximateTotal(approximateTotal)
+                .build();
+    }
+
+    //hands every department to the consumer one at a time, in a single read only transaction
+    //each entity is detached once the consumer is done with it, so the persistence context never grows
+    //and memory stays flat however big the table is
+    @Override
+    @Transactional(readOnly = true)
+    public void exportDepartments(Consumer<Department> consumer) {
+        try(Stream<Department> departments = departmentRepository.streamAll()) {
+            departments.forEach(department -> {
+                consumer.accept(department);
+                entityManager.detach(department);
+            });
+        }
+    }
+
+    //version for If-None-Match checks
+    //taken from the cached department when there is one, so it always matches what fetchDepartmentById returns,
+    //otherwise only the version column is read, on the primary like the department itself
+    @Override
+    public Long fetchDepartmentVersion(Long departmentId) throws DepartmentNotFoundException {
+        Cache cache = cacheManager.getCache(CacheConfig.DEPARTMENTS);
+        Department cached = Objects.isNull(cache) ? null : cache.get(departmentId, Department.class);
+        if(Objects.nonNull(cached)) {
+            return cached.getVersion();
+        }
+        if(!departmentExistenceFilter.mightContainId(departmentId)) {
+            throw DepartmentNotFoundException.notFound();
+        }
+
+        return readFromPrimary(() -> departmentRepository.findVersionById(departmentId))
+                .orElseThrow(DepartmentNotFoundException::notFound);
+    }
+
     @Override
+    @Transactional(readOnly = true)
+    public DepartmentListVersion fetchDepartmentListVersion() {
+        return departmentRepository.findListVersion();
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.DEPARTMENTS, key = "#departmentId")
     public Department fetchDepartmentById(Long departmentId) throws DepartmentNotFoundException {
+        //not in the filter -> the department does not exist, no need to ask the database
+        if(!departmentExistenceFilter.mightContainId(departmentId)) {
+            throw DepartmentNotFoundException.notFound();
+        }
+
+        return departmentsById.execute(departmentId, () -> findDepartmentById(departmentId));
+    }
+
+    //a department in the by-id cache has every field already, it is cut down instead of queried
+    //the views themselves are not cached - there is one per combination of fields
+    @Override
+    @Transactional(readOnly = true)
+    public DepartmentView fetchDepartmentById(Long departmentId, Set<DepartmentField> fields)
+            throws DepartmentNotFoundException {
+        Department cached = cached(CacheConfig.DEPARTMENTS, departmentId);
+        if(Objects.nonNull(cached)) {
+            return DepartmentView.of(cached, fields);
+        }
+        if(!departmentExistenceFilter.mightContainId(departmentId)) {
+            throw DepartmentNotFoundException.notFound();
+        }
+        return found(departmentRepository.findViewById(departmentId, fields));
+    }
+
+    private Department findDepartmentById(Long departmentId) throws DepartmentNotFoundException {
         //if there is no data present -> need to throw Exception
         //returns an optional type -> use .get() to retrieve the value inside the optional
-        Optional<Department> department = departmentRepository.findById(departmentId);
+        Optional<Department> department = departmentBatchLoader.isEnabled()
+                ? departmentBatchLoader.load(departmentId)
+                : readFromPrimary(() -> departmentRepository.findById(departmentId));
 
         //if department is not present -> throw Exception
         if(!department.isPresent()) {
-            throw new DepartmentNotFoundException("Department Not Found");
+            departmentExistenceFilter.passedButNotFound();
+            throw DepartmentNotFoundException.notFound();
         }
 
         //else -> return the department object
         return department.get();
     }
 
+    //multi-get - many departments in as few queries as possible, missing ids are reported instead of failing
+    //1. cached departments (the by-id cache of fetchDepartmentById) are taken from the cache
+    //2. ids the existence filter does not know are missing without a query
+    //3. the rest is read with one IN query per multiGetChunkSize ids, and put into the cache
+    //   (putIfAbsent - an update that has put a newer version in the meantime wins)
+    //   read from the primary - a replica may not have the latest update yet, and its copy would be served
+    //   from the cache until it expires
+    @Override
+    public DepartmentMultiGet fetchDepartmentsByIds(List<Long> departmentIds) {
+        Set<Long> ids = new LinkedHashSet<>(departmentIds);
+        Map<Long, Department> found = new HashMap<>();
+        List<Long> toLoad = new ArrayList<>();
+        Cache cache = cacheManager.getCache(CacheConfig.DEPARTMENTS);
+
+        for(Long id : ids) {
+            Department cached = Objects.isNull(cache) ? null : cache.get(id, Department.class);
+            if(Objects.nonNull(cached)) {
+                found.put(id, cached);
+            } else if(departmentExistenceFilter.mightContainId(id)) {
+                toLoad.add(id);
+            }
+        }
+
+        if(!toLoad.isEmpty()) {
+            readFromPrimary(() -> {
+                for(int from = 0; from < toLoad.size(); from += multiGetChunkSize) {
+                    List<Long> chunk = toLoad.subList(from, Math.min(from + multiGetChunkSize, toLoad.size()));
+                    for(Department department : departmentRepository.findAllById(chunk)) {
+                        found.put(department.getDepartmentId(), department);
+                        if(Objects.nonNull(cache)) {
+                            cache.putIfAbsent(department.getDepartmentId(), department);
+                        }
+                    }
+                }
+            });
+        }
+
+        List<Department> departments = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for(Long id : ids) {
+            Department department = found.get(id);
+            if(Objects.nonNull(department)) {
+                departments.add(department);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        return DepartmentMultiGet.builder()
+                .departments(departments)
+                .missingIds(missingIds)
+                .build();
+    }
+
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS, key = "#departmentId"),
+            @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS_BY_NAME, allEntries = true)
+    })
     public void deleteDepartmentById(Long departmentId) throws DepartmentNotFoundException {
-        Optional<Department> departmentOptional = departmentRepository.findById(departmentId);
+        //nothing deleted -> the department does not exist
+        if(departmentRepository.deleteDepartment(departmentId) == 0) {
+            throw DepartmentNotFoundException.notFound();
+        }
+        departmentExistenceFilter.deleted(1);
+    }
 
-        if(!departmentOptional.isPresent()) {
-            throw new DepartmentNotFoundException("Department Not Found");
+    //delete with If-Match - only deletes the version the client has seen
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS, key = "#departmentId"),
+            @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS_BY_NAME, allEntries = true)
+    })
+    public void deleteDepartmentById(Long departmentId, Long expectedVersion) throws DepartmentNotFoundException {
+        if(departmentRepository.deleteDepartmentWithVersion(departmentId, expectedVersion) == 0) {
+            notFoundOrVersionMismatch(departmentId);
         }
+        departmentExistenceFilter.deleted(1);
+    }
 
-        departmentRepository.deleteById(departmentId);
+    //bulk delete in one statement, ids that do not exist are skipped
+    //returns how many departments were deleted
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS_BY_NAME, allEntries = true)
+    })
+    public int deleteDepartmentsByIds(List<Long> departmentIds) {
+        int deleted = departmentRepository.deleteDepartments(new HashSet<>(departmentIds));
+        departmentExistenceFilter.deleted(deleted);
+        return deleted;
     }
 
     //logic
-    //1. get the department debDB in the database via departmentId
-    //2. whatever changes done in the department variable that was given and update it to the department debDB
-    //e.g. 3 fields returned, if we only need to change one field, then we only need to update that field
-    //we need to check if the other fields are null, so we can skip it
+    //only the fields that are given (not null and not blank) are changed, the others are left as they are
+    //e.g. 3 fields in the department, if we only need to change one field, then we only update that field
+    //the update is a single UPDATE ... RETURNING statement - no read before it and no merge after it
+    //no row updated -> the department does not exist
     @Override
+    @Transactional
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.DEPARTMENTS, key = "#departmentId"),
+            evict = @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS_BY_NAME, allEntries = true)
+    )
     public Department updateDepartment(Long departmentId, UpdatableDepartment department) throws DepartmentNotFoundException {
-        Optional<Department> depOpt = departmentRepository.findById(departmentId);
-
-        if(!depOpt.isPresent()) {
-            throw new DepartmentNotFoundException("Department Not Found");
-        }
+        Department updated = departmentRepository.updateDepartmentFields(departmentId, null,
+                updatableValue(department.getDepartmentName()),
+                updatableValue(department.getDepartmentAddress()),
+                updatableValue(department.getDepartmentCode()))
+                .orElseThrow(DepartmentNotFoundException::notFound);
+        //a rename -> the new name has to pass the filter
+        departmentExistenceFilter.added(updated);
+        return updated;
+    }
 
-        Department depDB = depOpt.get();
+    //update with If-Match - the version check is part of the UPDATE statement
+    //no row updated -> the department does not exist or somebody else has updated it in the meantime
+    @Override
+    @Transactional
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.DEPARTMENTS, key = "#departmentId"),
+            evict = @CacheEvict(cacheNames = CacheConfig.DEPARTMENTS_BY_NAME, allEntries = true)
+    )
+    public Department updateDepartment(Long departmentId, UpdatableDepartment department, Long expectedVersion)
+            throws DepartmentNotFoundException {
+        Optional<Department> updated = departmentRepository.updateDepartmentFields(departmentId, expectedVersion,
+                updatableValue(department.getDepartmentName()),
+                updatableValue(department.getDepartmentAddress()),
+                updatableValue(department.getDepartmentCode()));
 
-        //Null checks & Blank checks
-        //check if value is not null and not blank -> set the value; if one of the conditions does not hit, skip it
-        //do it for all the fields that are updatable
-        if(Objects.nonNull(department.getDepartmentName()) &&
-                !"".equalsIgnoreCase(department.getDepartmentName())) {
-            depDB.setDepartmentName(department.getDepartmentName());
+        if(!updated.isPresent()) {
+            notFoundOrVersionMismatch(departmentId);
         }
 
-        if(Objects.nonNull(department.getDepartmentCode()) &&
-                !"".equalsIgnoreCase(department.getDepartmentCode())) {
-            depDB.setDepartmentCode(department.getDepartmentCode());
-        }
+        departmentExistenceFilter.added(updated.get());
+        return updated.get();
+    }
 
-        if(Objects.nonNull(department.getDepartmentAddress()) &&
-                !"".equalsIgnoreCase(department.getDepartmentAddress())) {
-            depDB.setDepartmentAddress(department.getDepartmentAddress());
+    //a conditional write did not hit a row - only now it is worth a read to tell the two cases apart
+    private void notFoundOrVersionMismatch(Long departmentId) throws DepartmentNotFoundException {
+        if(!departmentRepository.existsById(departmentId)) {
+            throw DepartmentNotFoundException.notFound();
         }
+        throw new DepartmentVersionMismatchException("Department Version does not match");
+    }
 
-        // save into the DB after checking and setting
-        return departmentRepository.save(depDB);
+    //Null checks & Blank checks
+    //value is only updated if it is not null and not blank, null tells the repository to skip the column
+    private static String updatableValue(String value) {
+        if(Objects.nonNull(value) && !"".equalsIgnoreCase(value)) {
+            return value;
+        }
+        return null;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Department> fetchDepartmentByName(String departmentName) {
         return departmentRepository.findByDepartmentNameIgnoreCase(departmentName);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.DEPARTMENTS_BY_NAME, key = "#departmentName")
     public Department fetchOneDepartmentByName(String departmentName) throws DepartmentNotFoundException {
-        Department department = departmentRepository.findByDepartmentName(departmentName);
+        if(!departmentExistenceFilter.mightContainName(departmentName)) {
+            throw DepartmentNotFoundException.notFound();
+        }
+
+        return departmentsByName.execute(departmentName, () -> findOneDepartmentByName(departmentName));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DepartmentView> fetchDepartmentByName(String departmentName, Set<DepartmentField> fields) {
+        return departmentRepository.findViewsByNameIgnoreCase(departmentName, fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DepartmentView fetchOneDepartmentByName(String departmentName, Set<DepartmentField> fields)
+            throws DepartmentNotFoundException {
+        Department cached = cached(CacheConfig.DEPARTMENTS_BY_NAME, departmentName);
+        if(Objects.nonNull(cached)) {
+            return DepartmentView.of(cached, fields);
+        }
+        if(!departmentExistenceFilter.mightContainName(departmentName)) {
+            throw DepartmentNotFoundException.notFound();
+        }
+        return found(departmentRepository.findViewByName(departmentName, fields));
+    }
+
+    //search by prefix, substring or a typo over name, code and address (see DepartmentRepository.searchDepartments)
+    //read one row more than the page size - if it comes back there is a next page
+    //only the ranked candidates can be paged through, a page past them would always come back empty
+    //the threshold is set for this transaction only, the connection goes back to the pool without it
+    @Override
+    @Transactional(readOnly = true)
+    public DepartmentSearchResult searchDepartments(String query, int page, int size) {
+        if((long) (page + 1) * size > searchProperties.getMaxCandidates()) {
+            throw new SearchPageOutOfRangeException("Search pages end after the first "
+                    + searchProperties.getMaxCandidates() + " results");
+        }
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        departmentRepository.setWordSimilarityThreshold(String.valueOf(searchProperties.getWordSimilarityThreshold()));
+        List<Department> rows = departmentRepository.searchDepartments(term, "%" + escaped + "%", escaped + "%",
+                searchProperties.getMaxCandidates(), searchProperties.getCommonTermMatches(), size + 1, page * size);
+
+        boolean hasNext = rows.size() > size;
+        return DepartmentSearchResult.builder()
+                .content(hasNext ? rows.subList(0, size) : rows)
+                .page(page)
+                .size(size)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    //read-write transaction on purpose: read only ones go to a replica (see ReplicaRoutingDataSource)
+    //the session is made read only by hand instead - no dirty checking snapshots and no flush at the commit
+    private <T> T readFromPrimary(Supplier<T> reads) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            return reads.get();
+        });
+    }
+
+    private void readFromPrimary(Runnable reads) {
+        readFromPrimary(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    private Department cached(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return Objects.isNull(cache) ? null : cache.get(key, Department.class);
+    }
+
+    private DepartmentView found(Optional<DepartmentView> view) throws DepartmentNotFoundException {
+        if(!view.isPresent()) {
+            departmentExistenceFilter.passedButNotFound();
+            throw DepartmentNotFoundException.notFound();
+        }
+        return view.get();
+    }
+
+    private Department findOneDepartmentByName(String departmentName) throws DepartmentNotFoundException {
+        Department department = readFromPrimary(() -> departmentRepository.findByDepartmentName(departmentName));
 
         //check null or empty -> throw DepartmentNotFoundException
         if(Objects.isNull(department) || "".equals(department)) {
-            throw new DepartmentNotFoundException("Department Not Found");
+            departmentExistenceFilter.passedButNotFound();
+            throw DepartmentNotFoundException.notFound();
         }
 
         return department;
@@ -0,0 +1,43 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+//non blocking mirror of DepartmentService for the reactive profile
+//a department that does not exist is signalled as a DepartmentNotFoundException error, not thrown
+public interface ReactiveDepartmentService {
+
+    public Mono<Department> saveDepartment(Department department);
+
+    public Flux<Department> saveDepartments(List<Department> departments);
+
+    public Flux<Department> fetchDepartmentList();
+
+    public Mono<DepartmentPage> fetchDepartmentPage(int size, String sort, String cursor, boolean includeTotal);
+
+    public Flux<Department> exportDepartments();
+
+    public Mono<Department> fetchDepartmentById(Long departmentId);
+
+    public Mono<Long> fetchDepartmentVersion(Long departmentId);
+
+    public Mono<Void> deleteDepartmentById(Long departmentId);
+
+    public Mono<Void> deleteDepartmentById(Long departmentId, Long expectedVersion);
+
+    public Mono<Integer> deleteDepartmentsByIds(List<Long> departmentIds);
+
+    public Mono<Department> updateDepartment(Long departmentId, UpdatableDepartment department);
+
+    public Mono<Department> updateDepartment(Long departmentId, UpdatableDepartment department, Long expectedVersion);
+
+    public Flux<Department> fetchDepartmentByName(String departmentName);
+
+    public Mono<Department> fetchOneDepartmentByName(String departmentName);
+
+}
@@ -0,0 +1,177 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.DepartmentRow;
+import com.springlearn.Springboot.tutorial.entity.DepartmentSort;
+import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import com.springlearn.Springboot.tutorial.repository.ReactiveDepartmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+//same logic as DepartmentServiceImpl, every database call returns a Mono/Flux instead of blocking the thread
+//no @Cacheable here - the spring cache abstraction would cache the Mono itself, not the department
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveDepartmentServiceImpl implements ReactiveDepartmentService {
+
+    @Autowired
+    private ReactiveDepartmentRepository departmentRepository;
+
+    //create only, the database assigns the id
+    //the repository works on DepartmentRow, every result is turned back into a Department for the api
+    @Override
+    public Mono<Department> saveDepartment(Department department) {
+        log.info("inside SaveDepartment of ReactiveDepartmentService");
+        return departmentRepository.save(DepartmentRow.insertOf(department)).map(DepartmentRow::toDepartment);
+    }
+
+    //one transaction for the whole batch
+    @Override
+    @Transactional
+    public Flux<Department> saveDepartments(List<Department> departments) {
+        log.info("inside saveDepartments of ReactiveDepartmentService");
+        return departmentRepository.saveAll(Flux.fromIterable(departments).map(DepartmentRow::insertOf))
+                .map(DepartmentRow::toDepartment);
+    }
+
+    @Override
+    public Flux<Department> fetchDepartmentList() {
+        return departmentRepository.findAll().map(DepartmentRow::toDepartment);
+    }
+
+    //keyset pagination, see DepartmentServiceImpl.fetchDepartmentPage
+    @Override
+    public Mono<DepartmentPage> fetchDepartmentPage(int size, String sort, String cursor, boolean includeTotal) {
+        DepartmentCursor after = Objects.isNull(cursor) ? null : DepartmentCursor.decode(cursor);
+        DepartmentSort departmentSort = Objects.isNull(after) ? DepartmentSort.fromProperty(sort) : after.getSort();
+        int limit = size + 1;
+
+        Flux<DepartmentRow> rows;
+        if(departmentSort == DepartmentSort.NAME) {
+            rows = Objects.isNull(after)
+                    ? departmentRepository.findFirstPageOrderByDepartmentName(limit)
+                    : departmentRepository.findNextPageOrderByDepartmentName(after.getLastName(), after.getLastId(), limit);
+        } else {
+            rows = Objects.isNull(after)
+                    ? departmentRepository.findFirstPageOrderByDepartmentId(limit)
+                    : departmentRepository.findNextPageOrderByDepartmentId(after.getLastId(), limit);
+        }
+
+        Mono<Long> approximateTotal = includeTotal ? departmentRepository.estimateDepartmentCount() : Mono.just(-1L);
+
+        return rows.map(DepartmentRow::toDepartment).collectList().zipWith(approximateTotal, (content, total) -> {
+            String nextCursor = null;
+            if(content.size() > size) {
+                content = content.subList(0, size);
+                Department last = content.get(size - 1);
+                nextCursor = new DepartmentCursor(departmentSort, last.getDepartmentId(), last.getDepartmentName()).encode();
+            }
+            return DepartmentPage.builder()
+                    .content(content)
+                    .nextCursor(nextCursor)
+                    .approximateTotal(includeTotal ? total : null)
+                    .build();
+        });
+    }
+
+    //rows are emitted as the driver reads them, the subscriber's demand is the back pressure
+    @Override
+    @Transactional(readOnly = true)
+    public Flux<Department> exportDepartments() {
+        return departmentRepository.findAll().map(DepartmentRow::toDepartment);
+    }
+
+    @Override
+    public Mono<Department> fetchDepartmentById(Long departmentId) {
+        return departmentRepository.findById(departmentId)
+                .map(DepartmentRow::toDepartment)
+                .switchIfEmpty(Mono.error(DepartmentNotFoundException::notFound));
+    }
+
+    @Override
+    public Mono<Long> fetchDepartmentVersion(Long departmentId) {
+        return departmentRepository.findVersionById(departmentId)
+                .switchIfEmpty(Mono.error(DepartmentNotFoundException::notFound));
+    }
+
+    @Override
+    public Mono<Void> deleteDepartmentById(Long departmentId) {
+        return departmentRepository.deleteDepartment(departmentId)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(DepartmentNotFoundException.notFound())
+                        : Mono.empty());
+    }
+
+    @Override
+    public Mono<Void> deleteDepartmentById(Long departmentId, Long expectedVersion) {
+        return departmentRepository.deleteDepartmentWithVersion(departmentId, expectedVersion)
+                .flatMap(deleted -> deleted == 0 ? notFoundOrVersionMismatch(departmentId) : Mono.empty());
+    }
+
+    @Override
+    public Mono<Integer> deleteDepartmentsByIds(List<Long> departmentIds) {
+        return departmentRepository.deleteDepartments(new HashSet<>(departmentIds));
+    }
+
+    @Override
+    public Mono<Department> updateDepartment(Long departmentId, UpdatableDepartment department) {
+        return departmentRepository.updateDepartmentFields(departmentId, null,
+                updatableValue(department.getDepartmentName()),
+                updatableValue(department.getDepartmentAddress()),
+                updatableValue(department.getDepartmentCode()))
+                .map(DepartmentRow::toDepartment)
+                .switchIfEmpty(Mono.error(DepartmentNotFoundException::notFound));
+    }
+
+    @Override
+    public Mono<Department> updateDepartment(Long departmentId, UpdatableDepartment department, Long expectedVersion) {
+        return departmentRepository.updateDepartmentFields(departmentId, expectedVersion,
+                updatableValue(department.getDepartmentName()),
+                updatableValue(department.getDepartmentAddress()),
+                updatableValue(department.getDepartmentCode()))
+                .map(DepartmentRow::toDepartment)
+                .switchIfEmpty(Mono.defer(() -> notFoundOrVersionMismatch(departmentId)));
+    }
+
+    //a conditional write did not hit a row - only now it is worth a read to tell the two cases apart
+    private <T> Mono<T> notFoundOrVersionMismatch(Long departmentId) {
+        return departmentRepository.existsById(departmentId)
+                .flatMap(exists -> Mono.error(exists
+                        ? new DepartmentVersionMismatchException("Department Version does not match")
+                        : DepartmentNotFoundException.notFound()));
+    }
+
+    //Null checks & Blank checks - null leaves the column as it is
+    private static String updatableValue(String value) {
+        if(Objects.nonNull(value) && !"".equalsIgnoreCase(value)) {
+            return value;
+        }
+        return null;
+    }
+
+    @Override
+    public Flux<Department> fetchDepartmentByName(String departmentName) {
+        return departmentRepository.findByDepartmentNameIgnoreCase(departmentName).map(DepartmentRow::toDepartment);
+    }
+
+    @Override
+    public Mono<Department> fetchOneDepartmentByName(String departmentName) {
+        return departmentRepository.findByDepartmentName(departmentName)
+                .map(DepartmentRow::toDepartment)
+                .switchIfEmpty(Mono.error(DepartmentNotFoundException::notFound));
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//request coalescing ("single flight") for lookups by key
+//the first caller of a key runs the call, callers of the same key that come in while it runs wait for it
+//and get the same result - or the same exception - instead of running the query again
+//1. one in-flight call per key: the map locks only the bin of the key, callers of other keys never wait
+//2. a follower waits at most timeoutMillis, then runs the call itself (a slow query does not hold up everybody)
+//3. the call is forgotten as soon as it is done - this is no cache, the next caller runs it again
+//metrics (tag name): department.singleflight.coalesced -> calls answered by another caller's call
+//                    department.singleflight.timeouts  -> followers that gave up waiting
+final class SingleFlight<K, V, E extends Exception> {
+
+    interface Call<V, E extends Exception> {
+        V call() throws E;
+    }
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Class<E> exceptionType;
+    private final long timeoutMillis;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    SingleFlight(String name, Class<E> exceptionType, long timeoutMillis, MeterRegistry meterRegistry) {
+        this.exceptionType = exceptionType;
+        this.timeoutMillis = timeoutMillis;
+        this.coalesced = Counter.builder("department.singleflight.coalesced").tag("name", name).register(meterRegistry);
+        this.timeouts = Counter.builder("department.singleflight.timeouts").tag("name", name).register(meterRegistry);
+    }
+
+    V execute(K key, Call<V, E> call) throws E {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+
+        if(running == null) {
+            try {
+                V result = call.call();
+                mine.complete(result);
+                return result;
+            } catch (Throwable ex) {
+                mine.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+
+        coalesced.increment();
+        try {
+            return running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            timeouts.increment();
+            return call.call();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for " + key, ex);
+        } catch (ExecutionException ex) {
+            throw rethrow(ex.getCause());
+        }
+    }
+
+    //the exception of the call, as it was thrown (not wrapped)
+    private RuntimeException rethrow(Throwable cause) throws E {
+        if(exceptionType.isInstance(cause)) {
+            throw exceptionType.cast(cause);
+        }
+        if(cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if(cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+    }
+
+}
@@ -0,0 +1,45 @@
+-- department schema, previously created by hibernate ddl-auto
+-- "if not exists" so the script also baselines databases that were created by ddl-auto: update
+
+create table if not exists department (
+    department_id      bigint not null,
+    department_address varchar(255),
+    department_code    varchar(255),
+    department_name    varchar(255),
+    constraint department_pkey primary key (department_id)
+);
+
+-- Department.departmentId, allocationSize 50 (pooled optimizer)
+create sequence if not exists department_seq start with 1 increment by 50;
+
+-- ids of an existing table came from hibernate_sequence, continue after the highest one
+select setval('department_seq', greatest((select max(department_id) from department), 1));
+
+-- findByDepartmentName (fetchOneDepartmentByName) returns a single department, so a name is unique
+-- a table created by ddl-auto had no such constraint and may hold a name more than once: the migration stops here
+-- and lists those names instead of failing on the first duplicate key - which of the rows to keep (or to rename)
+-- is left to whoever owns the data, nothing is deleted or renamed by the script; run it again once they are resolved
+do $$
+declare
+    duplicates text;
+begin
+    select string_agg(format('%L (%s rows)', department_name, rows), ', ' order by department_name)
+    into duplicates
+    from (select department_name, count(*) as rows
+          from department
+          where department_name is not null
+          group by department_name
+          having count(*) > 1) names;
+    if duplicates is not null then
+        raise exception 'department names must be unique before department_name_key can be created, duplicates: %',
+            duplicates;
+    end if;
+end
+$$;
+
+create unique index if not exists department_name_key on department (department_name);
+
+-- findByDepartmentNameIgnoreCase is generated as upper(department_name) = upper(?)
+create index if not exists department_name_upper_idx on department (upper(department_name));
+
+create index if not exists department_code_idx on department (department_code);
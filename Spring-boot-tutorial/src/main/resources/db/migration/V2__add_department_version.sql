@@ -0,0 +1,2 @@
+-- optimistic locking version (Department.version), also used as the ETag of a department
+alter table department add column if not exists version bigint not null default 0;
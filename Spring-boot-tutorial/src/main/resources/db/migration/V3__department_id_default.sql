@@ -0,0 +1,3 @@
+-- r2dbc (reactive profile) inserts without an id and lets the database assign one
+-- hibernate keeps calling nextval itself, both draw from the same sequence so ids never collide
+alter table department alter column department_id set default nextval('department_seq');
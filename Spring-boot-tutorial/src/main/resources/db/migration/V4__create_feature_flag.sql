@@ -0,0 +1,7 @@
+-- feature flags set through /actuator/features, polled by every node (FeatureFlags)
+-- a feature without a row has its default state
+create table if not exists feature_flag (
+    name varchar(64) primary key,
+    enabled boolean not null,
+    updated_at timestamp not null default now()
+);
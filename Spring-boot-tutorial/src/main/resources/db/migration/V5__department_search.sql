@@ -0,0 +1,13 @@
+-- department search (DepartmentRepository.searchDepartments): prefix, substring and typo tolerant matching
+-- over name, code and address
+-- pg_trgm splits text into trigrams; a gin index of them answers like '%...%' and the word similarity
+-- operator (<%) without reading the whole table
+-- pg_trgm is a trusted extension (postgres 13+), a database owner can create it without being superuser
+create extension if not exists pg_trgm;
+
+-- the three columns as one lower case text - the search query uses exactly this expression, so the index is used
+create index if not exists department_search_trgm_idx on department using gin (
+    (lower(coalesce(department_name, '') || ' ' || coalesce(department_code, '') || ' '
+        || coalesce(department_address, ''))) gin_trgm_ops);
+-- new rows go to the pending list of the index first, which every search reads until (auto)vacuum merges it -
+-- run vacuum after a bulk load of departments
@@ -0,0 +1,5 @@
+-- keyset pagination sorted by name (findNextPageOrderByDepartmentName and the reactive variant):
+-- where (department_name, department_id) > (?, ?) order by department_name, department_id
+-- both columns in the index, so the row value comparison is an index condition and a deep page
+-- costs the same as the first one
+create index if not exists department_name_id_idx on department (department_name, department_id);
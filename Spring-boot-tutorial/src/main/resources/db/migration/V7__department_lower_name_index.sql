@@ -0,0 +1,4 @@
+-- department search (DepartmentRepository.searchDepartments): names starting with the term
+-- where lower(department_name) like 'term%' - a range scan of this index whatever the collation of the database
+-- (a plain btree only serves like with the C collation), the few names in the range are then sorted
+create index if not exists department_lower_name_idx on department (lower(department_name) text_pattern_ops);
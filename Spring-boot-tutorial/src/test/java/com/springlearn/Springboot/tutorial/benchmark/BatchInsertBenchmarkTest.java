@@ -0,0 +1,101 @@
+package com.springlearn.Springboot.tutorial.benchmark;
+
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import com.springlearn.Springboot.tutorial.service.DepartmentService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//rows/sec of the single insert path (POST /departments, one save per call) against the batch path
+//(POST /departments/batch, jdbc batching + pooled sequence)
+//needs the qa database, run with: mvn test -Pbenchmark -Dtest=BatchInsertBenchmarkTest -Dbenchmark.rows=20000
+//the qa table is shared - the names get a tag of their own per run, and only the inserted ids are deleted
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class BatchInsertBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5000);
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final int TAG_LETTERS = 6;
+
+    private final String tag = letters(ThreadLocalRandom.current().nextInt(26 * 26 * 26 * 26 * 26 * 26), TAG_LETTERS);
+    private final List<Long> insertedIds = new ArrayList<>();
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @AfterEach
+    void tearDown() {
+        delete(insertedIds);
+    }
+
+    @Test
+    void compareSingleInsertWithBatchInsert() {
+        long start = System.nanoTime();
+        for(Department department : departments("Single")) {
+            insertedIds.add(departmentService.saveDepartment(department).getDepartmentId());
+        }
+        double singleRowsPerSecond = rowsPerSecond(System.nanoTime() - start);
+        delete(insertedIds);
+
+        start = System.nanoTime();
+        List<Department> saved = departmentService.saveDepartments(departments("Batch"));
+        double batchRowsPerSecond = rowsPerSecond(System.nanoTime() - start);
+        saved.forEach(department -> insertedIds.add(department.getDepartmentId()));
+
+        assertEquals(ROWS, departmentRepository.findAllById(insertedIds).size());
+        log.info("{} rows - single insert: {} rows/sec, batch insert: {} rows/sec ({}x)",
+                ROWS,
+                String.format("%.0f", singleRowsPerSecond),
+                String.format("%.0f", batchRowsPerSecond),
+                String.format("%.1f", batchRowsPerSecond / singleRowsPerSecond));
+    }
+
+    private List<Department> departments(String prefix) {
+        List<Department> departments = new ArrayList<>(ROWS);
+        for(int i = 0; i < ROWS; i++) {
+            departments.add(Department.builder()
+                    .departmentName(prefix + tag + letters(i, 0))
+                    .departmentAddress("Benchmark Street " + i)
+                    .departmentCode("B-" + (i % 1000))
+                    .build());
+        }
+        return departments;
+    }
+
+    private void delete(List<Long> ids) {
+        for(int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+            departmentService.deleteDepartmentsByIds(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())));
+        }
+        ids.clear();
+    }
+
+    //department names are letters only
+    //at least minLength letters - the fixed length tag keeps the names of two runs apart
+    private static String letters(int i, int minLength) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('a' + i % 26));
+            i /= 26;
+        } while(i > 0 || name.length() < minLength);
+        return name.toString();
+    }
+
+    private static double rowsPerSecond(long nanos) {
+        return ROWS / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,104 @@
+package com.springlearn.Springboot.tutorial.benchmark;
+
+import com.springlearn.Springboot.tutorial.service.DepartmentService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+//latency of DepartmentService.searchDepartments (threshold + ranked query, one page of 20) with the trigram index
+//of V5 and without it (seq scan) - the index is dropped inside a transaction that is rolled back
+//seeded names and addresses are random letters (md5 with the digits swapped for letters), so rows do not share
+//their trigrams - only 16 different letters though, every trigram is in more rows than in real text
+//queries: start of a name, middle of a name, 3 letters (the shortest query, in a few thousand rows each),
+//a name with one letter missing, and a term that is in every row
+//needs the qa database, run with: mvn test -Pbenchmark -Dtest=DepartmentSearchBenchmarkTest -Dbenchmark.rows=1000000
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class DepartmentSearchBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int SEARCHES = Integer.getInteger("benchmark.searches", 200);
+    //a seq scan over a million rows takes seconds, a few searches are enough to show it
+    private static final int SEARCHES_WITHOUT_INDEX = Integer.getInteger("benchmark.searches-without-index", 5);
+    private static final String SEED_STREET = "Seed Street";
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<String> names;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into department (department_id, department_name, department_address, department_code) " +
+                "select nextval('department_seq'), " +
+                "initcap(translate(substr(md5(g::text), 1, 8) || g, '0123456789', 'ghijklmnop')), " +
+                "initcap(translate(substr(md5(g::text), 11, 8), '0123456789', 'ghijklmnop')) || ' ' || ? || ' ' || (g % 500), " +
+                "'S-' || (g % 10000) " +
+                "from generate_series(1, ?) g", SEED_STREET, ROWS);
+        //a bulk insert leaves the new rows in the pending list of the gin index, which every search scans
+        //until (auto)vacuum merges it - measure the settled index
+        jdbcTemplate.execute("vacuum analyze department");
+        names = jdbcTemplate.queryForList("select lower(department_name) from department " +
+                "where department_address like ? order by random() limit ?", String.class, "% " + SEED_STREET + " %", SEARCHES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from department where department_address like ?", "% " + SEED_STREET + " %");
+    }
+
+    @Test
+    void compareSearchLatencyWithAndWithoutIndex() {
+        report("with trigram index", SEARCHES);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("drop index department_search_trgm_idx");
+            report("without trigram index", SEARCHES_WITHOUT_INDEX);
+            status.setRollbackOnly();
+        });
+    }
+
+    private void report(String label, int searches) {
+        log.info("{} rows, {} - prefix    : {}", ROWS, label, measure(searches, i -> names.get(i).substring(0, 5)));
+        log.info("{} rows, {} - substring : {}", ROWS, label, measure(searches, i -> names.get(i).substring(2, 7)));
+        log.info("{} rows, {} - 3 letters : {}", ROWS, label, measure(searches, i -> names.get(i).substring(3, 6)));
+        log.info("{} rows, {} - typo      : {}", ROWS, label,
+                measure(searches, i -> names.get(i).substring(0, 4) + names.get(i).substring(5)));
+        log.info("{} rows, {} - every row : {}", ROWS, label, measure(searches, i -> SEED_STREET));
+    }
+
+    private String measure(int searches, IntFunction<String> query) {
+        //warm up - plans cached, pages in shared buffers
+        for(int i = 0; i < Math.min(20, searches); i++) {
+            departmentService.searchDepartments(query.apply(names.size() - 1 - i), 0, 20);
+        }
+
+        long[] micros = new long[searches];
+        int found = 0;
+        for(int i = 0; i < searches; i++) {
+            long start = System.nanoTime();
+            found += departmentService.searchDepartments(query.apply(i), 0, 20).getContent().isEmpty() ? 0 : 1;
+            micros[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(micros);
+        return String.format("p50 %dus, p99 %dus, max %dus, %d of %d with results",
+                micros[searches / 2], micros[(int) (searches * 0.99)], micros[searches - 1], found, searches);
+    }
+}
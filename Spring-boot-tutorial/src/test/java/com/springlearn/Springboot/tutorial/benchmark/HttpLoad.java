@@ -0,0 +1,85 @@
+package com.springlearn.Springboot.tutorial.benchmark;
+
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//http load for the benchmark tests - a fixed number of GET requests, at most `connections` of them in flight
+//peak heap and peak threads are measured for the whole jvm (client and server)
+class HttpLoad {
+
+    private final int connections;
+
+    HttpLoad(int connections) {
+        this.connections = connections;
+    }
+
+    Result run(int port, String uri, int requests) {
+        return run(port, i -> uri, requests);
+    }
+
+    //request i goes to uri.apply(i)
+    Result run(int port, IntFunction<String> uri, int requests) {
+        ConnectionProvider provider = ConnectionProvider.builder("benchmark")
+                .maxConnections(connections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        HttpClient client = HttpClient.create(provider).baseUrl("http://localhost:" + port);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicLong ok = new AtomicLong();
+
+        System.gc();
+        threads.resetPeakThreadCount();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+
+        Flux.range(0, requests)
+                .flatMap(i -> client.get().uri(uri.apply(i))
+                        .responseSingle((response, body) -> body.asByteArray()
+                                .doOnNext(bytes -> {
+                                    if(response.status().code() == 200) {
+                                        ok.incrementAndGet();
+                                    }
+                                })), connections)
+                .blockLast();
+
+        long nanos = System.nanoTime() - start;
+        provider.disposeLater().block();
+        assertEquals(requests, ok.get());
+
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        return new Result(requests / (nanos / 1_000_000_000.0), peakHeap, threads.getPeakThreadCount());
+    }
+
+    static class Result {
+        private final double requestsPerSecond;
+        private final long peakHeapBytes;
+        private final int peakThreads;
+
+        private Result(double requestsPerSecond, long peakHeapBytes, int peakThreads) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.peakHeapBytes = peakHeapBytes;
+            this.peakThreads = peakThreads;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f requests/sec, peak heap %d MB, peak threads %d",
+                    requestsPerSecond, peakHeapBytes / (1024 * 1024), peakThreads);
+        }
+    }
+}
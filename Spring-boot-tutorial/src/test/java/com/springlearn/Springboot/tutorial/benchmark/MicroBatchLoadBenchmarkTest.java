@@ -0,0 +1,138 @@
+package com.springlearn.Springboot.tutorial.benchmark;
+
+import com.springlearn.Springboot.tutorial.SpringBootTutorialApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//GET /departments/{id} of many different ids with one query per request against micro-batched lookups
+//(micro-batch.enabled) at high concurrency - throughput, connection pool pressure and database work
+//1. pool: hikaricp.connections.acquire (time waiting for a connection) and .usage (time a connection is held)
+//2. database: transactions committed (pg_stat_database) and cpu time of the postgres processes - the cpu is
+//   read from /proc, so it is only reported when postgres runs on the same (linux) host
+//the caches are off and the existence filter too (the seeded rows are inserted after it is built)
+//needs the qa database, run with: mvn test -Pbenchmark -Dtest=MicroBatchLoadBenchmarkTest
+//-Dbenchmark.connections=200 -Dbenchmark.requests=50000 -Dbenchmark.rows=100000
+@Slf4j
+@Tag("benchmark")
+class MicroBatchLoadBenchmarkTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 200);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 50000);
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 100000);
+    private static final String SEED_ADDRESS = "Seed Street";
+
+    private final HttpLoad load = new HttpLoad(CONNECTIONS);
+
+    @Test
+    void compareQueryPerRequestWithMicroBatching() {
+        String single = run(false);
+        String batched = run(true);
+
+        log.info("{} requests over {} connections, {} rows", REQUESTS, CONNECTIONS, ROWS);
+        log.info("query per request: {}", single);
+        log.info("micro-batched    : {}", batched);
+    }
+
+    private String run(boolean microBatch) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootTutorialApplication.class)
+                .profiles("qa")
+                //command line arguments - default properties would lose against application.yml
+                .run("--server.port=0",
+                        "--micro-batch.enabled=" + microBatch,
+                        "--spring.cache.type=none",
+                        "--department-filter.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.springlearn.Springboot.tutorial.controller=WARN",
+                        "--logging.level.com.springlearn.Springboot.tutorial.service=WARN",
+                        "--server.tomcat.max-connections=" + (CONNECTIONS + 100),
+                        "--server.tomcat.accept-count=" + CONNECTIONS);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        try {
+            jdbcTemplate.update("insert into department (department_id, department_name, department_address, department_code) " +
+                    "select nextval('department_seq'), 'Seed' || g, ?, 'S-' || g " +
+                    "from generate_series(1, ?) g", SEED_ADDRESS, ROWS);
+            List<Long> ids = jdbcTemplate.queryForList("select department_id from department where department_address = ?",
+                    Long.class, SEED_ADDRESS);
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            load.run(port, i -> "/departments/" + ids.get(i % ids.size()), Math.min(REQUESTS, 5000));
+
+            Timer acquire = meterRegistry.get("hikaricp.connections.acquire").tag("pool", "primary").timer();
+            Timer usage = meterRegistry.get("hikaricp.connections.usage").tag("pool", "primary").timer();
+            long acquires = acquire.count();
+            double acquireMillis = acquire.totalTime(TimeUnit.MILLISECONDS);
+            double usageMillis = usage.totalTime(TimeUnit.MILLISECONDS);
+            long transactions = committedTransactions(jdbcTemplate);
+            long cpuMillis = postgresCpuMillis();
+
+            //a different stride than the warm up, so the rows are not read in the same order
+            HttpLoad.Result result = load.run(port, i -> "/departments/" + ids.get((int) ((i * 7919L) % ids.size())), REQUESTS);
+
+            long connections = acquire.count() - acquires;
+            return String.format("%s | %d connections taken, %.1f ms avg wait, %.0f ms held in total | "
+                            + "%d transactions, postgres cpu %s",
+                    result, connections,
+                    (acquire.totalTime(TimeUnit.MILLISECONDS) - acquireMillis) / Math.max(1, connections),
+                    usage.totalTime(TimeUnit.MILLISECONDS) - usageMillis,
+                    committedTransactions(jdbcTemplate) - transactions,
+                    cpuMillis < 0 ? "n/a" : (postgresCpuMillis() - cpuMillis) + " ms");
+        } finally {
+            jdbcTemplate.update("delete from department where department_address = ?", SEED_ADDRESS);
+            context.close();
+        }
+    }
+
+    private static long committedTransactions(JdbcTemplate jdbcTemplate) {
+        //the backends report their counters to the stats collector every 500 ms at most
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        jdbcTemplate.execute("select pg_stat_clear_snapshot()");
+        return jdbcTemplate.queryForObject(
+                "select xact_commit from pg_stat_database where datname = current_database()", Long.class);
+    }
+
+    //utime + stime of every postgres process (clock ticks, 100 per second on linux), -1 when /proc is not there
+    private static long postgresCpuMillis() {
+        Path proc = Paths.get("/proc");
+        if(!Files.isDirectory(proc)) {
+            return -1;
+        }
+        long ticks = 0;
+        try(Stream<Path> processes = Files.list(proc)) {
+            for(Path process : (Iterable<Path>) processes::iterator) {
+                try {
+                    if(!"postgres".equals(Files.readString(process.resolve("comm")).trim())) {
+                        continue;
+                    }
+                    String stat = Files.readString(process.resolve("stat"));
+                    //fields after the process name, which is in parentheses and may contain spaces
+                    String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                    ticks += Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+                } catch (IOException | RuntimeException ex) {
+                    //not a process, or it has ended in the meantime
+                }
+            }
+        } catch (IOException ex) {
+            return -1;
+        }
+        return ticks * 10;
+    }
+}
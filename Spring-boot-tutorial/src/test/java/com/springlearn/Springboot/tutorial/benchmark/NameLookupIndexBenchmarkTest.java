@@ -0,0 +1,90 @@
+package com.springlearn.Springboot.tutorial.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+//lookup latency of the name/code queries with the V1 migration indexes and without them (seq scan)
+//runs on a scratch copy of the department table with the same indexes - dropping them on the shared qa table
+//would lock it (access exclusive) for the whole measurement; the queries are the ones the repository generates
+//needs the qa database, run with: mvn test -Pbenchmark -Dtest=NameLookupIndexBenchmarkTest -Dbenchmark.rows=1000000
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class NameLookupIndexBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int LOOKUPS = Integer.getInteger("benchmark.lookups", 200);
+    private static final String TABLE = "department_index_benchmark";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //including indexes -> the columns and every index of department (department_name_key, ...), under new names
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("drop table if exists " + TABLE);
+        jdbcTemplate.execute("create table " + TABLE + " (like department including defaults including indexes)");
+        jdbcTemplate.update("insert into " + TABLE + " (department_id, department_name, department_address, department_code) " +
+                "select g, 'Seed' || g, 'Seed Street', 'S-' || (g % 100000) " +
+                "from generate_series(1, ?) g", ROWS);
+        jdbcTemplate.execute("analyze " + TABLE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table if exists " + TABLE);
+    }
+
+    @Test
+    void compareLookupLatencyWithAndWithoutIndexes() {
+        report("with indexes");
+
+        //everything but the primary key
+        List<String> indexes = jdbcTemplate.queryForList("select indexname from pg_indexes " +
+                "where schemaname = current_schema() and tablename = ? and indexname <> ?",
+                String.class, TABLE, TABLE + "_pkey");
+        indexes.forEach(index -> jdbcTemplate.execute("drop index " + index));
+        report("without indexes");
+    }
+
+    private void report(String label) {
+        Random random = new Random(42);
+        log.info("{} rows, {} - findByDepartmentName: {}", ROWS, label,
+                measure(i -> jdbcTemplate.queryForList("select department_id from " + TABLE +
+                        " where department_name = ?", Long.class, "Seed" + (1 + random.nextInt(ROWS)))));
+        log.info("{} rows, {} - findByDepartmentNameIgnoreCase: {}", ROWS, label,
+                measure(i -> jdbcTemplate.queryForList("select department_id from " + TABLE +
+                        " where upper(department_name) = upper(?)", Long.class, "SEED" + (1 + random.nextInt(ROWS)))));
+        log.info("{} rows, {} - department_code lookup: {}", ROWS, label,
+                measure(i -> jdbcTemplate.queryForList("select department_id from " + TABLE +
+                        " where department_code = ?", Long.class, "S-" + random.nextInt(100000))));
+    }
+
+    private static String measure(IntConsumer lookup) {
+        //warm up - plans cached, pages in shared buffers
+        for(int i = 0; i < 20; i++) {
+            lookup.accept(i);
+        }
+
+        long[] micros = new long[LOOKUPS];
+        for(int i = 0; i < LOOKUPS; i++) {
+            long start = System.nanoTime();
+            lookup.accept(i);
+            micros[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(micros);
+        return String.format("p50 %dus, p99 %dus, max %dus",
+                micros[LOOKUPS / 2], micros[(int) (LOOKUPS * 0.99)], micros[LOOKUPS - 1]);
+    }
+}
@@ -0,0 +1,55 @@
+package com.springlearn.Springboot.tutorial.benchmark;
+
+import com.springlearn.Springboot.tutorial.SpringBootTutorialApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+//throughput and memory of the servlet api (tomcat + jdbc) against the reactive api (netty + r2dbc)
+//at 5000 concurrent connections, both calling GET /departments?size=20 (a database read, not cached)
+//each api is started on its own, on a random port, and gets the same load from the same client
+//the client runs in this jvm too - it is the same for both runs, so the difference is the server
+//needs the qa database, run with: mvn test -Pbenchmark -Dtest=ServletVsReactiveLoadBenchmarkTest
+//-Dbenchmark.connections=5000 -Dbenchmark.requests=100000
+@Slf4j
+@Tag("benchmark")
+class ServletVsReactiveLoadBenchmarkTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 5000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 50000);
+
+    private final HttpLoad load = new HttpLoad(CONNECTIONS);
+
+    @Test
+    void compareServletWithReactiveUnderLoad() {
+        HttpLoad.Result servlet = run("qa");
+        HttpLoad.Result reactive = run("qa", "reactive");
+
+        log.info("{} requests over {} connections", REQUESTS, CONNECTIONS);
+        log.info("servlet : {}", servlet);
+        log.info("reactive: {}", reactive);
+    }
+
+    private HttpLoad.Result run(String... profiles) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootTutorialApplication.class)
+                .profiles(profiles)
+                .properties("server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.springlearn.Springboot.tutorial.controller=WARN",
+                        "logging.level.com.springlearn.Springboot.tutorial.service=WARN",
+                        //tomcat: accept every connection of the client, the request threads stay at the default 200
+                        "server.tomcat.max-connections=" + (CONNECTIONS + 100),
+                        "server.tomcat.accept-count=" + CONNECTIONS)
+                .run();
+        try {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            //warm up (jit, pools), then measure
+            load.run(port, "/departments?size=20", Math.min(REQUESTS, 5000));
+            return load.run(port, "/departments?size=20", REQUESTS);
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.springlearn.Springboot.tutorial.benchmark;
+
+import com.springlearn.Springboot.tutorial.SpringBootTutorialApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//full departments against the sparse fieldset departmentId,departmentName (fields=...)
+//response body bytes (uncompressed) and latency of the list and of the by-id lookup, one request at a time
+//the caches are off (every by-id lookup reads the database) and the existence filter too
+//needs the qa database, run with: mvn test -Pbenchmark -Dtest=SparseFieldsetBenchmarkTest -Dbenchmark.rows=100000
+@Slf4j
+@Tag("benchmark")
+class SparseFieldsetBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 100000);
+    private static final int LIST_REQUESTS = Integer.getInteger("benchmark.list-requests", 20);
+    private static final int LOOKUPS = Integer.getInteger("benchmark.lookups", 2000);
+    private static final String SEED_ADDRESS = "Seed Street, Building 12, Industrial Estate";
+    private static final String NARROW = "fields=departmentId,departmentName";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void compareFullWithSparseFieldset() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootTutorialApplication.class)
+                .profiles("qa")
+                .run("--server.port=0",
+                        "--spring.cache.type=none",
+                        "--department-filter.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.springlearn.Springboot.tutorial.controller=WARN",
+                        "--logging.level.com.springlearn.Springboot.tutorial.service=WARN");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        try {
+            jdbcTemplate.update("insert into department (department_id, department_name, department_address, department_code) " +
+                    "select nextval('department_seq'), 'Seed' || g, ?, 'S-' || (g % 10000) " +
+                    "from generate_series(1, ?) g", SEED_ADDRESS, ROWS);
+            List<Long> ids = jdbcTemplate.queryForList("select department_id from department where department_address = ?",
+                    Long.class, SEED_ADDRESS);
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            log.info("{} rows", ROWS);
+            log.info("list,  full  : {}", measure(LIST_REQUESTS, i -> base + "/departments"));
+            log.info("list,  narrow: {}", measure(LIST_REQUESTS, i -> base + "/departments?" + NARROW));
+            log.info("by id, full  : {}", measure(LOOKUPS, i -> base + "/departments/" + ids.get(i % ids.size())));
+            log.info("by id, narrow: {}", measure(LOOKUPS, i -> base + "/departments/" + ids.get(i % ids.size()) + "?" + NARROW));
+        } finally {
+            jdbcTemplate.update("delete from department where department_address = ?", SEED_ADDRESS);
+            context.close();
+        }
+    }
+
+    private String measure(int requests, IntFunction<String> uri) throws IOException, InterruptedException {
+        //warm up - plans cached, pages in shared buffers, jit
+        for(int i = 0; i < Math.max(5, requests / 10); i++) {
+            get(uri.apply(i));
+        }
+
+        long[] micros = new long[requests];
+        long bytes = 0;
+        for(int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            bytes += get(uri.apply(i));
+            micros[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(micros);
+        return String.format("%d bytes per response, p50 %dus, p99 %dus, max %dus",
+                bytes / requests, micros[requests / 2], micros[(int) (requests * 0.99)], micros[requests - 1]);
+    }
+
+    private long get(String uri) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(uri)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response.body().length;
+    }
+}
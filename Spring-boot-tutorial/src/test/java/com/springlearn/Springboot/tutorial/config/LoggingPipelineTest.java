@@ -0,0 +1,108 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//plain unit test of the log sampling and the dropped event count, on a logback context of its own
+class LoggingPipelineTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        context.stop();
+    }
+
+    @Test
+    public void whenLoggerSampledOut_thenDenyInfoButNotWarn() {
+        SamplingTurboFilter filter = startedFilter();
+        filter.addLogger("com.springlearn.Springboot.tutorial.controller=0");
+        Logger controller = context.getLogger("com.springlearn.Springboot.tutorial.controller.DepartmentController");
+
+        assertEquals(FilterReply.DENY, filter.decide(null, controller, Level.INFO, "Inside", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, controller, Level.WARN, "Inside", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, context.getLogger("org.hibernate"), Level.INFO, "x", null, null));
+    }
+
+    @Test
+    public void whenLongerPrefixMatches_thenLongerPrefixWins() {
+        SamplingTurboFilter filter = startedFilter();
+        filter.addLogger("com.springlearn=0");
+        filter.addLogger("com.springlearn.Springboot.tutorial.service=1");
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null,
+                context.getLogger("com.springlearn.Springboot.tutorial.service.DepartmentServiceImpl"), Level.INFO, "x", null, null));
+        assertEquals(FilterReply.DENY, filter.decide(null,
+                context.getLogger("com.springlearn.Springboot.tutorial.controller.DepartmentController"), Level.INFO, "x", null, null));
+    }
+
+    @Test
+    public void whenEndpointSampledOut_thenDenyOnlyInThatEndpoint() {
+        SamplingTurboFilter filter = startedFilter();
+        filter.addEndpoint("GET /departments/export=0");
+        Logger logger = context.getLogger("com.springlearn.Springboot.tutorial.service.DepartmentServiceImpl");
+
+        MDC.put(CorrelationIdFilter.ENDPOINT, "GET /departments/export");
+        assertEquals(FilterReply.DENY, filter.decide(null, logger, Level.INFO, "x", null, null));
+        MDC.put(CorrelationIdFilter.ENDPOINT, "GET /departments/1");
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "x", null, null));
+    }
+
+    @Test
+    public void whenQueueFull_thenDropAndCountEvents() {
+        //a queue of 1 whose consumer never gets to write: the appender behind it blocks until released
+        ListAppender<ILoggingEvent> target = new ListAppender<ILoggingEvent>() {
+            @Override
+            protected synchronized void append(ILoggingEvent event) {
+                super.append(event);
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        target.setContext(context);
+        target.start();
+        CountingAsyncAppender async = new CountingAsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(1);
+        async.setDiscardingThreshold(0);
+        async.addAppender(target);
+        async.start();
+        Logger logger = context.getLogger("test");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+        long dropped = CountingAsyncAppender.dropped();
+
+        for(int i = 0; i < 10; i++) {
+            logger.warn("event {}", i);
+        }
+
+        //at most one event is being written and one is queued, the rest is dropped
+        assertTrue(CountingAsyncAppender.dropped() - dropped >= 8);
+        async.setMaxFlushTime(1);
+        synchronized (target) {
+            target.notifyAll();
+        }
+    }
+
+    private SamplingTurboFilter startedFilter() {
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.setContext(context);
+        filter.start();
+        return filter;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+//plain unit test - the primary and the replica are mocked datasources, no database needed
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ResultSet lag;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = Mockito.mock(DataSource.class);
+        replica = Mockito.mock(DataSource.class);
+        primaryConnection = Mockito.mock(Connection.class);
+        replicaConnection = Mockito.mock(Connection.class);
+        Statement statement = Mockito.mock(Statement.class);
+        lag = Mockito.mock(ResultSet.class);
+
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        Mockito.when(replica.getConnection()).thenReturn(replicaConnection);
+        Mockito.when(replicaConnection.createStatement()).thenReturn(statement);
+        Mockito.when(statement.executeQuery(ReplicaRoutingDataSource.REPLICATION_LAG_QUERY)).thenReturn(lag);
+        Mockito.when(lag.next()).thenReturn(true);
+
+        routingDataSource = new ReplicaRoutingDataSource(primary,
+                Collections.singletonMap("replica-1", replica), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void whenReadOnlyAndReplicaHealthy_thenUseReplica() throws SQLException {
+        Mockito.when(lag.getDouble(1)).thenReturn(0.5);
+        routingDataSource.checkReplicas();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void whenNotReadOnly_thenUsePrimary() throws SQLException {
+        Mockito.when(lag.getDouble(1)).thenReturn(0.0);
+        routingDataSource.checkReplicas();
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void whenReplicaLagsTooMuch_thenUsePrimary() throws SQLException {
+        Mockito.when(lag.getDouble(1)).thenReturn(30.0);
+        routingDataSource.checkReplicas();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    public void whenReplicaConnectionFails_thenFallBackToPrimary() throws SQLException {
+        Mockito.when(lag.getDouble(1)).thenReturn(0.0);
+        routingDataSource.checkReplicas();
+        Mockito.when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        //the replica is skipped until the next check, no second attempt
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        Mockito.verify(replica, Mockito.times(2)).getConnection();
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import com.springlearn.Springboot.tutorial.service.DepartmentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//jdbc statements, pool connections and hibernate flushes of one request per endpoint, against the qa database
+//a change that adds a query, a second transaction or a flush to an endpoint fails here
+//statements -> SqlStatisticsFilter, connections -> hikaricp.connections.acquire of the primary pool,
+//flushes -> hibernate statistics (generate_statistics in application.yml)
+//the feature flags and the write counter of the existence filter are not polled during the test,
+//so every connection taken belongs to the request
+@SpringBootTest(properties = {"feature-flags.refresh-interval-millis=3600000",
+        "department-filter.change-poll-interval-millis=3600000"})
+@AutoConfigureMockMvc
+class RequestSqlBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private SqlStatisticsFilter sqlStatisticsFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Department department;
+    private final List<Long> created = new ArrayList<>();
+
+    //saved through the service (not the repository) so the existence filter knows the department
+    @BeforeEach
+    void setUp() {
+        department = departmentService.saveDepartment(Department.builder()
+                .departmentName(uniqueName())
+                .departmentAddress("Budget Street")
+                .departmentCode("BG-001")
+                .build());
+        created.add(department.getDepartmentId());
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    void tearDown() {
+        departmentRepository.deleteDepartments(created);
+    }
+
+    @Test
+    public void whenSave_thenOneInsertInOneTransaction() throws Exception {
+        MvcResult result = assertUsage(post("/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"departmentName\":\"" + uniqueName() + "\",\"departmentAddress\":\"Budget Street\","
+                        + "\"departmentCode\":\"BG-002\"}"), 1, 1);
+        created.add(objectMapper.readValue(result.getResponse().getContentAsString(), Department.class).getDepartmentId());
+    }
+
+    @Test
+    public void whenFetchById_thenOneSelectAndThenNoneFromCache() throws Exception {
+        assertRead(get("/departments/" + department.getDepartmentId()), 1, 1);
+        assertRead(get("/departments/" + department.getDepartmentId()), 0, 0);
+    }
+
+    @Test
+    public void whenFetchFieldsById_thenOneSelect() throws Exception {
+        assertRead(get("/departments/" + department.getDepartmentId()).param("fields", "departmentId,departmentName"), 1, 1);
+    }
+
+    @Test
+    public void whenFetchOneByName_thenOneSelect() throws Exception {
+        assertRead(get("/departments/name/one/" + department.getDepartmentName()), 1, 1);
+    }
+
+    @Test
+    public void whenFetchPage_thenOneSelect() throws Exception {
+        assertRead(get("/departments").param("size", "5"), 1, 1);
+    }
+
+    @Test
+    public void whenFetchByIds_thenOneSelect() throws Exception {
+        assertRead(get("/departments").param("ids", department.getDepartmentId() + ",-1"), 1, 1);
+    }
+
+    //the word similarity threshold and the search itself
+    @Test
+    public void whenSearch_thenThresholdAndOneSelect() throws Exception {
+        assertRead(get("/departments/search").param("q", department.getDepartmentName()), 2, 1);
+    }
+
+    @Test
+    public void whenUpdate_thenOneStatementInOneTransaction() throws Exception {
+        assertUsage(put("/departments/" + department.getDepartmentId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"departmentCode\":\"BG-003\"}"), 1, 1);
+    }
+
+    @Test
+    public void whenDelete_thenOneStatementInOneTransaction() throws Exception {
+        assertUsage(delete("/departments/" + department.getDepartmentId()), 1, 1);
+    }
+
+    //reads never flush - read only transactions run with flush mode MANUAL
+    private MvcResult assertRead(RequestBuilder request, int statements, int connections) throws Exception {
+        long flushes = statistics().getFlushCount();
+        MvcResult result = assertUsage(request, statements, connections);
+        assertEquals(0, statistics().getFlushCount() - flushes, "flushes");
+        return result;
+    }
+
+    private MvcResult assertUsage(RequestBuilder request, int statements, int connections) throws Exception {
+        sqlStatisticsFilter.reset();
+        long acquired = connections();
+
+        MvcResult result = mockMvc.perform(request).andExpect(status().is2xxSuccessful()).andReturn();
+
+        assertEquals(statements, sqlStatisticsFilter.getStatements(), "statements");
+        assertEquals(connections, connections() - acquired, "connections");
+        return result;
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long connections() {
+        return meterRegistry.get("hikaricp.connections.acquire").tag("pool", "primary").timer().count();
+    }
+
+    //department names are letters only
+    private static String uniqueName() {
+        Random random = new Random();
+        StringBuilder name = new StringBuilder("Budget");
+        for(int i = 0; i < 12; i++) {
+            name.append((char) ('a' + random.nextInt(26)));
+        }
+        return name.toString();
+    }
+
+}
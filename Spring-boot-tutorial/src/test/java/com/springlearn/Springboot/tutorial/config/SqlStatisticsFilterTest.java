@@ -0,0 +1,80 @@
+package com.springlearn.Springboot.tutorial.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//plain unit test of the per request statement counting, no spring context and no database
+//the servlet plays hibernate and reports the statements through the listener
+class SqlStatisticsFilterTest {
+
+    private final SqlStatisticsFilter filter = new SqlStatisticsFilter(properties());
+
+    @Test
+    public void whenStatementsOverThreshold_thenFlagRequest() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/departments/1"), new MockHttpServletResponse(),
+                new MockFilterChain(servletRunning(1)));
+        filter.doFilter(new MockHttpServletRequest("GET", "/departments"), new MockHttpServletResponse(),
+                new MockFilterChain(servletRunning(3)));
+
+        List<SqlStatisticsFilter.FlaggedRequest> flagged = filter.getFlaggedRequests();
+        assertEquals(1, flagged.size());
+        assertEquals("/departments", flagged.get(0).getUri());
+        assertEquals(3, flagged.get(0).getStatements());
+        assertEquals(2, filter.getRequests());
+        assertEquals(4, filter.getStatements());
+        assertEquals(3, filter.getMaxStatements());
+    }
+
+    @Test
+    public void whenBufferFull_thenDropOldestFlaggedRequest() throws Exception {
+        for(int i = 1; i <= 3; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/departments/" + i), new MockHttpServletResponse(),
+                    new MockFilterChain(servletRunning(3)));
+        }
+
+        List<SqlStatisticsFilter.FlaggedRequest> flagged = filter.getFlaggedRequests();
+        assertEquals(2, flagged.size());
+        assertEquals("/departments/3", flagged.get(0).getUri());
+        assertEquals("/departments/2", flagged.get(1).getUri());
+    }
+
+    @Test
+    public void whenStatementsOutsideRequest_thenNotCounted() {
+        new SqlStatisticsListener().jdbcExecuteStatementStart();
+        new SqlStatisticsListener().jdbcExecuteStatementEnd();
+
+        assertEquals(0, filter.getStatements());
+        assertTrue(filter.getFlaggedRequests().isEmpty());
+    }
+
+    private static SqlStatisticsProperties properties() {
+        SqlStatisticsProperties properties = new SqlStatisticsProperties();
+        properties.setStatementThreshold(2);
+        properties.setFlaggedRequests(2);
+        return properties;
+    }
+
+    private static HttpServlet servletRunning(int statements) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                SqlStatisticsListener listener = new SqlStatisticsListener();
+                for(int i = 0; i < statements; i++) {
+                    listener.jdbcExecuteStatementStart();
+                    listener.jdbcExecuteStatementEnd();
+                }
+            }
+        };
+    }
+
+}
@@ -1,11 +1,23 @@
 package com.springlearn.Springboot.tutorial.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.config.Feature;
+import com.springlearn.Springboot.tutorial.config.FeatureFlags;
 import com.springlearn.Springboot.tutorial.entity.ApiError;
 import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentMultiGet;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.DepartmentSearchResult;
+import com.springlearn.Springboot.tutorial.entity.FieldValidationError;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
 import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import com.springlearn.Springboot.tutorial.error.SearchPageOutOfRangeException;
 import com.springlearn.Springboot.tutorial.service.DepartmentService;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -13,25 +25,38 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import static org.hamcrest.Matchers.*;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 //controller layer, when called, hits the end point
 //so we have to hit the end point and see how it behaves
 //WebMvcTest
+//FeatureFlags is not part of the web slice - imported for the interceptor of the Department feature
 @Slf4j
 @WebMvcTest(DepartmentController.class)
+@Import(FeatureFlags.class)
 class DepartmentControllerTest {
 
     @Autowired
@@ -43,6 +68,9 @@ class DepartmentControllerTest {
     @MockBean
     private DepartmentService departmentService;
 
+    @Autowired
+    private FeatureFlags featureFlags;
+
     private Department department;
 
     @BeforeEach
@@ -177,6 +205,111 @@ class DepartmentControllerTest {
         assertEquals(actualResponseBody, expectedResponseBody);
     }
 
+    //1f2. saveDepartment - duplicate department name returns conflict
+    @Test
+    public void whenDuplicateDepartmentName_thenReturn409() throws Exception {
+        Department inputDepartment = Department.builder()
+                .departmentName("CS")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .build();
+
+        Mockito.when(departmentService.saveDepartment(inputDepartment))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement",
+                                new SQLException("duplicate key value", "23505"), "department_name_key")));
+
+        ApiError expectedErrorResponse = new ApiError(HttpStatus.CONFLICT,
+                "departmentName",
+                "Department Name already exists");
+        String expectedResponseBody = objectMapper.writeValueAsString(expectedErrorResponse);
+
+        mockMvc.perform(post("/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(inputDepartment)))
+                .andExpect(status().isConflict())
+                .andExpect(result -> assertEquals(expectedResponseBody, result.getResponse().getContentAsString()));
+    }
+
+    //1f3. saveDepartment - any other constraint returns a generic conflict, not the one of the name
+    @Test
+    public void whenOtherConstraintViolated_thenReturn409WithoutName() throws Exception {
+        Department inputDepartment = Department.builder()
+                .departmentName("CS")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .build();
+
+        Mockito.when(departmentService.saveDepartment(inputDepartment))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement",
+                                new SQLException("duplicate key value", "23505"), "department_pkey")));
+
+        ApiError expectedErrorResponse = new ApiError(HttpStatus.CONFLICT,
+                "department",
+                "Department conflicts with the stored departments");
+        String expectedResponseBody = objectMapper.writeValueAsString(expectedErrorResponse);
+
+        mockMvc.perform(post("/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(inputDepartment)))
+                .andExpect(status().isConflict())
+                .andExpect(result -> assertEquals(expectedResponseBody, result.getResponse().getContentAsString()));
+    }
+
+    //1g. saveDepartments - valid batch is passed to the service and returned
+    @Test
+    public void whenValidBatch_thenReturnSavedDepartments() throws Exception {
+        Department inputDepartment = Department.builder()
+                .departmentName("CS")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .build();
+        List<Department> input = new ArrayList<>();
+        input.add(inputDepartment);
+        List<Department> saved = new ArrayList<>();
+        saved.add(department);
+
+        Mockito.when(departmentService.saveDepartments(input)).thenReturn(saved);
+
+        mockMvc.perform(post("/departments/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(input)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].departmentId").value(1L));
+    }
+
+    //1h. saveDepartments - every invalid department is reported with its index and nothing is saved
+    @Test
+    public void whenInvalidDepartmentInBatch_thenReturn400WithIndexedErrors() throws Exception {
+        Department valid = Department.builder()
+                .departmentName("CS")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .build();
+        Department invalid = Department.builder()
+                .departmentName("12345")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-002")
+                .build();
+        List<Department> input = new ArrayList<>();
+        input.add(valid);
+        input.add(invalid);
+
+        List<FieldValidationError> errors = new ArrayList<>();
+        errors.add(new FieldValidationError("saveDepartments.departments[1].departmentName", "Letters only"));
+        String expectedResponseBody = objectMapper.writeValueAsString(new ApiError(HttpStatus.BAD_REQUEST, errors));
+
+        mockMvc.perform(post("/departments/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(input)))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertEquals(expectedResponseBody, result.getResponse().getContentAsString()));
+
+        Mockito.verify(departmentService, Mockito.never()).saveDepartments(Mockito.anyList());
+    }
+
     //2a. fetchDepartmentById - check valid id and return status ok and check values returned
     @Test
     void whenValidId_thenFetchDepartmentById() throws Exception {
@@ -231,6 +364,55 @@ class DepartmentControllerTest {
         assertEquals(actualResponseBody, expectedResponseBody);
     }
 
+    //2d. fetchDepartmentById - matching If-None-Match returns 304 from the version alone, the department is not loaded
+    @Test
+    void whenIfNoneMatchIsCurrentVersion_thenReturnNotModified() throws Exception {
+        Mockito.when(departmentService.fetchDepartmentVersion(1L)).thenReturn(2L);
+
+        mockMvc.perform(get("/departments/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(content().string(""));
+
+        Mockito.verify(departmentService, Mockito.never()).fetchDepartmentById(Mockito.anyLong());
+    }
+
+    //2e. fetchDepartmentById - unknown id returns 404, the pre-serialized body is the same as the serialized ApiError
+    @Test
+    void whenUnknownIdFromFetchDepartmentById_thenReturn404AndCheckErrorResult() throws Exception {
+        Mockito.when(departmentService.fetchDepartmentById(99L))
+                .thenThrow(DepartmentNotFoundException.notFound());
+
+        MvcResult mvcResult = mockMvc.perform(get("/departments/{id}", 99L))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        ApiError expectedErrorResponse = new ApiError(HttpStatus.NOT_FOUND,
+                "uri=/departments/99",
+                "Department Not Found");
+
+        String actualResponseBody = mvcResult.getResponse().getContentAsString();
+        String expectedResponseBody = objectMapper.writeValueAsString(expectedErrorResponse);
+        assertEquals(expectedResponseBody, actualResponseBody);
+    }
+
+    //2f. fetchDepartmentById - Department feature switched off, 404 before the controller is called
+    @Test
+    void whenDepartmentFeatureDisabled_thenReturn404WithoutCallingService() throws Exception {
+        featureFlags.set(Feature.DEPARTMENT, false);
+        try {
+            mockMvc.perform(get("/departments/{id}", 1L))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.errors[0].field").value("feature"))
+                    .andExpect(jsonPath("$.errors[0].message").value("Department is disabled"));
+        } finally {
+            featureFlags.reset(Feature.DEPARTMENT);
+        }
+
+        Mockito.verify(departmentService, Mockito.never()).fetchDepartmentById(Mockito.anyLong());
+    }
+
     //3a. updateDepartment - when valid id and return department
     @Test
     void whenValidIdFromUpdate_thenReturnDepartment() throws Exception{
@@ -312,7 +494,30 @@ class DepartmentControllerTest {
         assertEquals(departmentCaptor.getValue().getDepartmentCode(), "CS-001");
     }
 
-    //3e. saveDepartment - test validation rule and return bad request
+    //3e. updateDepartment - If-Match with an old version returns 412
+    @Test
+    void whenIfMatchIsNotCurrentVersion_thenReturnPreconditionFailed() throws Exception {
+        UpdatableDepartment inputDepartment = UpdatableDepartment.builder()
+                .departmentCode("CS-001")
+                .build();
+
+        Mockito.when(departmentService.updateDepartment(1L, inputDepartment, 3L))
+                .thenThrow(new DepartmentVersionMismatchException("Department Version does not match"));
+
+        ApiError expectedErrorResponse = new ApiError(HttpStatus.PRECONDITION_FAILED,
+                HttpHeaders.IF_MATCH,
+                "Department Version does not match");
+        String expectedResponseBody = objectMapper.writeValueAsString(expectedErrorResponse);
+
+        mockMvc.perform(put("/departments/{id}", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(inputDepartment)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(result -> assertEquals(expectedResponseBody, result.getResponse().getContentAsString()));
+    }
+
+    //3f. saveDepartment - test validation rule and return bad request
     @Test
     public void inValidLettersOnlyCheckDepartmentNameFromUpdate_thenReturnErrorMessage() throws Exception {
         UpdatableDepartment inputDepartment = UpdatableDepartment.builder()
@@ -356,6 +561,21 @@ class DepartmentControllerTest {
                 .andExpect(result -> assertEquals(expectedResponseBody, result.getResponse().getContentAsString()));
     }
 
+    //4c. deleteDepartmentsByIds - all ids are passed to the service in one call
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenIdsFromBulkDelete_thenReturnDeletedCount() throws Exception {
+        Mockito.when(departmentService.deleteDepartmentsByIds(Mockito.anyList())).thenReturn(2);
+
+        mockMvc.perform(delete("/departments").param("ids", "1,2,3"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2 departments deleted successfully"));
+
+        ArgumentCaptor<List<Long>> idsCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(departmentService, Mockito.times(1)).deleteDepartmentsByIds(idsCaptor.capture());
+        assertEquals(3, idsCaptor.getValue().size());
+    }
+
     //5a. fetchDepartmentList - should return list of departments, check content and length
     @Test
     void shouldReturnListOfDepartments() throws Exception {
@@ -374,14 +594,198 @@ class DepartmentControllerTest {
                         result.getResponse().getContentAsString()));
     }
 
+    //5b. fetchDepartmentPage - when a page size is given, return one page and the cursor of the next one
+    @Test
+    void whenPageSizeGiven_thenReturnPageWithNextCursor() throws Exception {
+        List<Department> content = new ArrayList<>();
+        content.add(department);
+        DepartmentPage page = DepartmentPage.builder().content(content).nextCursor("SUQ6MQ").build();
+
+        Mockito.when(departmentService.fetchDepartmentPage(1, "departmentId", null, false)).thenReturn(page);
+
+        mockMvc.perform(get("/departments").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].departmentId").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value("SUQ6MQ"));
+
+        Mockito.verify(departmentService, Mockito.never()).fetchDepartmentList();
+    }
+
+    //5c. fetchDepartmentPage - page size over the maximum returns bad request
+    @Test
+    void whenPageSizeTooLarge_thenReturnBadRequest() throws Exception {
+        ApiError expectedErrorResponse = new ApiError(HttpStatus.BAD_REQUEST,
+                "fetchDepartmentPage.size",
+                "Maximum page size is 500");
+        String expectedResponseBody = objectMapper.writeValueAsString(expectedErrorResponse);
+
+        mockMvc.perform(get("/departments").param("size", "501"))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertEquals(expectedResponseBody, result.getResponse().getContentAsString()));
+    }
+
+    //6a. exportDepartments - every department is written as one json line
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenExport_thenWriteOneJsonLinePerDepartment() throws Exception {
+        Department department2 = Department.builder().departmentId(2L).departmentName("IT")
+                .departmentAddress("Foundation Roads").departmentCode("IT-123").build();
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<Department> consumer = invocation.getArgument(0);
+            consumer.accept(department);
+            consumer.accept(department2);
+            return null;
+        }).when(departmentService).exportDepartments(Mockito.any(Consumer.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/departments/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String expectedBody = objectMapper.writeValueAsString(department) + "\n"
+                + objectMapper.writeValueAsString(department2) + "\n";
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedBody));
+    }
+
+    //7a. fetchDepartmentsByIds - found departments and missing ids in one response
+    @Test
+    void whenIdsFromMultiGet_thenReturnDepartmentsAndMissingIds() throws Exception {
+        Mockito.when(departmentService.fetchDepartmentsByIds(Arrays.asList(1L, 2L)))
+                .thenReturn(DepartmentMultiGet.builder()
+                        .departments(Collections.singletonList(department))
+                        .missingIds(Collections.singletonList(2L))
+                        .build());
+
+        mockMvc.perform(get("/departments").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.departments", hasSize(1)))
+                .andExpect(jsonPath("$.departments[0].departmentId").value(1L))
+                .andExpect(jsonPath("$.missingIds[0]").value(2L));
+    }
+
+    //7b. fetchDepartmentsByIds - the ids in the body (POST /departments/lookup)
+    @Test
+    void whenIdsFromLookup_thenReturnDepartmentsAndMissingIds() throws Exception {
+        Mockito.when(departmentService.fetchDepartmentsByIds(Arrays.asList(1L, 2L)))
+                .thenReturn(DepartmentMultiGet.builder()
+                        .departments(Collections.singletonList(department))
+                        .missingIds(Collections.singletonList(2L))
+                        .build());
+
+        mockMvc.perform(post("/departments/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.departments[0].departmentName").value("CS"))
+                .andExpect(jsonPath("$.missingIds[0]").value(2L));
+    }
 
+    //8a. fetchDepartmentFieldsById - only the requested fields are in the body
+    @Test
+    void whenFieldsGiven_thenReturnOnlyThoseFields() throws Exception {
+        department.setVersion(2L);
+        EnumSet<DepartmentField> fields = EnumSet.of(DepartmentField.DEPARTMENT_ID, DepartmentField.DEPARTMENT_NAME);
+        Mockito.when(departmentService.fetchDepartmentById(1L, fields))
+                .thenReturn(DepartmentView.of(department, fields));
 
+        mockMvc.perform(get("/departments/1").param("fields", "departmentName,departmentId"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(content().json("{\"departmentId\":1,\"departmentName\":\"CS\"}", true));
+
+        Mockito.verify(departmentService, Mockito.never()).fetchDepartmentById(1L);
+    }
 
+    //8b. fetchDepartmentListFields - the sparse fieldset of every department
+    @Test
+    void whenFieldsGivenForList_thenReturnOnlyThoseFields() throws Exception {
+        EnumSet<DepartmentField> fields = EnumSet.of(DepartmentField.DEPARTMENT_CODE);
+        Mockito.when(departmentService.fetchDepartmentList(fields))
+                .thenReturn(Collections.singletonList(DepartmentView.of(department, fields)));
 
+        mockMvc.perform(get("/departments").param("fields", "departmentCode"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"departmentCode\":\"CS-001\"}]", true));
+    }
 
+    //8c. unknown field returns bad request
+    @Test
+    void whenUnknownFieldGiven_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/departments/1").param("fields", "departmentId,version"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message")
+                        .value("Fields are departmentId, departmentName, departmentAddress and departmentCode only"));
 
+        Mockito.verifyNoInteractions(departmentService);
+    }
 
+    //8d. fields with a page size returns bad request - a page always has every field
+    @Test
+    void whenFieldsAndSizeGiven_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/departments").param("fields", "departmentId").param("size", "5"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("fields,size"))
+                .andExpect(jsonPath("$.errors[0].message").value("These parameters cannot be combined"));
 
+        Mockito.verifyNoInteractions(departmentService);
+    }
 
+    //8e. ids with a page size returns bad request - a multi-get is not paged
+    @Test
+    void whenSizeAndIdsGiven_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/departments").param("size", "5").param("ids", "1,2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("size,ids"))
+                .andExpect(jsonPath("$.errors[0].message").value("These parameters cannot be combined"));
+
+        Mockito.verifyNoInteractions(departmentService);
+    }
+
+    //9a. searchDepartments - one page of matches, best first
+    @Test
+    void whenSearchQueryGiven_thenReturnPageOfMatches() throws Exception {
+        DepartmentSearchResult result = DepartmentSearchResult.builder()
+                .content(Collections.singletonList(department)).page(0).size(20).hasNext(true).build();
+
+        Mockito.when(departmentService.searchDepartments("cros", 0, 20)).thenReturn(result);
+
+        mockMvc.perform(get("/departments/search").param("q", "cros"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].departmentName").value("CS"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    //9b. searchDepartments - a query under 3 characters returns bad request
+    @Test
+    void whenSearchQueryTooShort_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/departments/search").param("q", "cs"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message").value("Search between 3 and 100 characters"));
+
+        Mockito.verifyNoInteractions(departmentService);
+    }
+
+    //9c. searchDepartments - a page past the ranked candidates returns bad request
+    @Test
+    void whenSearchPagePastCandidates_thenReturnBadRequest() throws Exception {
+        Mockito.when(departmentService.searchDepartments("cros", 49, 50))
+                .thenThrow(new SearchPageOutOfRangeException("Search pages end after the first 1000 results"));
+
+        MvcResult mvcResult = mockMvc.perform(get("/departments/search").param("q", "cros")
+                .param("page", "49").param("size", "50"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        ApiError expectedErrorResponse = new ApiError(HttpStatus.BAD_REQUEST,
+                "page",
+                "Search pages end after the first 1000 results");
+        assertEquals(objectMapper.writeValueAsString(expectedErrorResponse), mvcResult.getResponse().getContentAsString());
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,237 @@
+package com.springlearn.Springboot.tutorial.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springlearn.Springboot.tutorial.entity.ApiError;
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import com.springlearn.Springboot.tutorial.service.ReactiveDepartmentService;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//the reactive controller has to answer exactly like DepartmentController - same bodies, statuses and errors
+@WebFluxTest(ReactiveDepartmentController.class)
+@ActiveProfiles("reactive")
+class ReactiveDepartmentControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ReactiveDepartmentService departmentService;
+
+    private Department department;
+
+    @BeforeEach
+    void setUp() {
+        department = Department.builder()
+                .departmentName("CS")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .departmentId(1L)
+                .version(2L)
+                .build();
+    }
+
+    //1a. saveDepartment - test for value returned
+    @Test
+    void whenValidInputFromSave_thenReturnDepartment() {
+        Department inputDepartment = Department.builder()
+                .departmentName("CS")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .build();
+
+        Mockito.when(departmentService.saveDepartment(inputDepartment)).thenReturn(Mono.just(department));
+
+        webTestClient.post().uri("/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(inputDepartment)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.departmentId").isEqualTo(1)
+                .jsonPath("$.departmentName").isEqualTo("CS");
+    }
+
+    //1b. saveDepartment - test validation rule and return bad request
+    @Test
+    void inValidLettersOnlyCheckDepartmentNameFromSave_thenReturnErrorMessage() throws Exception {
+        Department inputDepartment = Department.builder()
+                .departmentName("12345")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .build();
+
+        String expectedResponseBody = objectMapper.writeValueAsString(
+                new ApiError(HttpStatus.BAD_REQUEST, "departmentName", "Letters only"));
+
+        webTestClient.post().uri("/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(inputDepartment)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .value(body -> assertEquals(expectedResponseBody, body));
+        Mockito.verify(departmentService, Mockito.never()).saveDepartment(Mockito.any());
+    }
+
+    //1c. saveDepartment - duplicate name returns 409 on departmentName, read from the message r2dbc passes on
+    @Test
+    void whenDuplicateDepartmentName_thenReturn409() throws Exception {
+        Department inputDepartment = Department.builder()
+                .departmentName("CS")
+                .departmentAddress("Crossroads")
+                .departmentCode("CS-001")
+                .build();
+
+        Mockito.when(departmentService.saveDepartment(inputDepartment))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("executing insert",
+                        new R2dbcDataIntegrityViolationException(
+                                "duplicate key value violates unique constraint \"department_name_key\"", "23505"))));
+
+        String expectedResponseBody = objectMapper.writeValueAsString(
+                new ApiError(HttpStatus.CONFLICT, "departmentName", "Department Name already exists"));
+
+        webTestClient.post().uri("/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(inputDepartment)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody(String.class)
+                .value(body -> assertEquals(expectedResponseBody, body));
+    }
+
+    //2a. fetchDepartmentById - valid id returns the department with its ETag
+    @Test
+    void whenValidId_thenReturnDepartmentWithETag() {
+        Mockito.when(departmentService.fetchDepartmentById(1L)).thenReturn(Mono.just(department));
+
+        webTestClient.get().uri("/departments/{id}", 1L)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+                .expectBody()
+                .jsonPath("$.departmentCode").isEqualTo("CS-001");
+    }
+
+    //2b. fetchDepartmentById - matching If-None-Match returns 304, the department is not loaded
+    @Test
+    void whenIfNoneMatchIsCurrentVersion_thenReturnNotModified() {
+        Mockito.when(departmentService.fetchDepartmentVersion(1L)).thenReturn(Mono.just(2L));
+        Mockito.when(departmentService.fetchDepartmentById(1L)).thenReturn(Mono.just(department));
+
+        webTestClient.get().uri("/departments/{id}", 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    //2c. fetchDepartmentById - invalid path variable type returns 400 with the same error as the servlet api
+    @Test
+    void whenInvalidIdType_thenReturnBadRequestAndCheckError() throws Exception {
+        String expectedResponseBody = objectMapper.writeValueAsString(
+                new ApiError(HttpStatus.BAD_REQUEST, "id", "id should be of type java.lang.Long"));
+
+        webTestClient.get().uri("/departments/{id}", "abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .value(body -> assertEquals(expectedResponseBody, body));
+    }
+
+    //2d. fetchDepartmentById - unknown id returns 404
+    @Test
+    void whenUnknownId_thenReturnNotFound() {
+        Mockito.when(departmentService.fetchDepartmentById(9L))
+                .thenReturn(Mono.error(new DepartmentNotFoundException("Department Not Found")));
+
+        webTestClient.get().uri("/departments/{id}", 9L)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.errors[0].field").isEqualTo("uri=/departments/9")
+                .jsonPath("$.errors[0].message").isEqualTo("Department Not Found");
+    }
+
+    //3a. updateDepartment - If-Match with an old version returns 412
+    @Test
+    void whenIfMatchIsNotCurrentVersion_thenReturnPreconditionFailed() {
+        UpdatableDepartment inputDepartment = UpdatableDepartment.builder()
+                .departmentCode("CS-001")
+                .build();
+
+        Mockito.when(departmentService.updateDepartment(1L, inputDepartment, 3L))
+                .thenReturn(Mono.error(new DepartmentVersionMismatchException("Department Version does not match")));
+
+        webTestClient.put().uri("/departments/{id}", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(inputDepartment)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                .expectBody()
+                .jsonPath("$.errors[0].field").isEqualTo(HttpHeaders.IF_MATCH);
+    }
+
+    //4a. multi-get is not ported - 400 on ids, the plain list is not returned instead
+    @Test
+    void whenIds_thenReturnBadRequestInsteadOfList() throws Exception {
+        String expectedResponseBody = objectMapper.writeValueAsString(
+                new ApiError(HttpStatus.BAD_REQUEST, "ids", "Multi-get is not available in the reactive profile"));
+
+        webTestClient.get().uri("/departments?ids=1,2")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .value(body -> assertEquals(expectedResponseBody, body));
+        Mockito.verifyNoInteractions(departmentService);
+    }
+
+    //4b. sparse fieldsets are not ported - 400 on fields, also for a single department
+    @Test
+    void whenFields_thenReturnBadRequestInsteadOfEveryField() {
+        webTestClient.get().uri("/departments/{id}?fields=departmentName", 1L)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].field").isEqualTo("fields");
+        webTestClient.get().uri("/departments?size=10&fields=departmentName")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].field").isEqualTo("fields");
+        Mockito.verifyNoInteractions(departmentService);
+    }
+
+    //4c. search is not ported - 400, not a lookup of the id "search"
+    @Test
+    void whenSearch_thenReturnBadRequest() {
+        webTestClient.get().uri("/departments/search?q=comp")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].field").isEqualTo("q")
+                .jsonPath("$.errors[0].message").isEqualTo("Search is not available in the reactive profile");
+    }
+
+}
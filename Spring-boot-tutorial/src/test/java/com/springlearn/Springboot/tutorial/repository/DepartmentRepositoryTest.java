@@ -1,12 +1,24 @@
 package com.springlearn.Springboot.tutorial.repository;
 
 import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,10 +49,11 @@ class DepartmentRepositoryTest {
         entityManager.flush();
     }
 
+    //ids come from department_seq (blocks of 50) in a database that is never dropped - use the id of the fixture
     @Test
     public void whenFindById_thenReturnDepartment() {
-        Department department = departmentRepository.findById(1L).get();
-        assertEquals(department.getDepartmentName(), "CS");
+        Department found = departmentRepository.findById(department.getDepartmentId()).get();
+        assertEquals(found.getDepartmentName(), "CS");
     }
 
     @Test
@@ -52,7 +65,7 @@ class DepartmentRepositoryTest {
     @Test
     public void whenSaved_thenFindById() {
         departmentRepository.save(department);
-        assertNotNull(departmentRepository.findById(1L));
+        assertTrue(departmentRepository.findById(department.getDepartmentId()).isPresent());
     }
 
     @Test
@@ -61,4 +74,133 @@ class DepartmentRepositoryTest {
         assertNotNull(departmentRepository.findByDepartmentName("CS"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void whenSeekAfterNameCursor_thenReturnOnlyFollowingRows() {
+        entityManager.persist(Department.builder().departmentName("IT")
+                .departmentAddress("Second Street").departmentCode("IT-001").build());
+        entityManager.flush();
+
+        //the qa database may have other departments, every one of them must sort after the cursor
+        List<Department> next = departmentRepository.findNextPageOrderByDepartmentName(
+                department.getDepartmentName(), department.getDepartmentId(), PageRequest.of(0, 1000));
+        assertTrue(next.stream().anyMatch(found -> "IT".equals(found.getDepartmentName())));
+        assertTrue(next.stream().allMatch(found -> found.getDepartmentName().compareTo("CS") > 0));
+    }
+
+    //CustomRestExceptionHandler tells a duplicate name from other conflicts by this constraint name
+    @Test
+    public void whenDuplicateName_thenViolateDepartmentNameKey() {
+        DataIntegrityViolationException ex = assertThrows(DataIntegrityViolationException.class, () ->
+                departmentRepository.saveAndFlush(Department.builder()
+                        .departmentName("CS").departmentAddress("Other Street").departmentCode("CS-002").build()));
+
+        assertTrue(ex.getCause() instanceof ConstraintViolationException);
+        assertEquals("department_name_key", ((ConstraintViolationException) ex.getCause()).getConstraintName());
+    }
+
+    //the qa database is shared with other tests and may hold more departments - only the fixture is looked for
+    @Test
+    public void whenStreamAll_thenReturnEveryDepartment() {
+        try(Stream<Department> departments = departmentRepository.streamAll()) {
+            List<Long> ids = departments.map(Department::getDepartmentId).collect(Collectors.toList());
+            assertTrue(ids.contains(department.getDepartmentId()));
+        }
+    }
+
+    @Test
+    public void whenUpdateDepartmentFields_thenOnlyGivenFieldsChange() {
+        //start from an empty persistence context, like a new request would
+        entityManager.clear();
+
+        Optional<Department> updated = departmentRepository.updateDepartmentFields(
+                department.getDepartmentId(), null, null, null, "CS-002");
+
+        assertTrue(updated.isPresent());
+        assertEquals("CS-002", updated.get().getDepartmentCode());
+        assertEquals("CS", updated.get().getDepartmentName());
+        assertEquals("First Street", updated.get().getDepartmentAddress());
+    }
+
+    @Test
+    public void whenUpdateDepartmentFieldsWithVersion_thenOnlyCurrentVersionUpdates() {
+        entityManager.clear();
+        Long version = departmentRepository.findVersionById(department.getDepartmentId()).get();
+
+        Optional<Department> updated = departmentRepository.updateDepartmentFields(
+                department.getDepartmentId(), version, null, null, "CS-002");
+        assertTrue(updated.isPresent());
+        assertEquals(version + 1, updated.get().getVersion());
+
+        //the same version again is stale now
+        assertFalse(departmentRepository.updateDepartmentFields(
+                department.getDepartmentId(), version, null, null, "CS-003").isPresent());
+    }
+
+    @Test
+    public void whenUpdateDepartmentFieldsWithUnknownId_thenReturnEmpty() {
+        assertFalse(departmentRepository.updateDepartmentFields(-1L, null, "IT", null, null).isPresent());
+    }
+
+    @Test
+    public void whenDeleteDepartment_thenReturnDeletedRowCount() {
+        assertEquals(1, departmentRepository.deleteDepartment(department.getDepartmentId()));
+        assertEquals(0, departmentRepository.deleteDepartment(department.getDepartmentId()));
+    }
+
+    @Test
+    public void whenFindViewById_thenReturnOnlyRequestedFields() {
+        entityManager.clear();
+
+        DepartmentView view = departmentRepository.findViewById(department.getDepartmentId(),
+                EnumSet.of(DepartmentField.DEPARTMENT_NAME, DepartmentField.DEPARTMENT_CODE)).get();
+
+        assertEquals(Map.of("departmentName", "CS", "departmentCode", "CS-001"), view.getFields());
+        assertEquals(department.getDepartmentId(), view.getDepartmentId());
+        assertNotNull(view.getVersion());
+        //scalars only - nothing was loaded into the persistence context
+        assertFalse(entityManager.getEntityManager().contains(department));
+    }
+
+    @Test
+    public void whenFindViewsByNameIgnoreCase_thenMatchAnyCase() {
+        List<DepartmentView> views = departmentRepository.findViewsByNameIgnoreCase("cs",
+                EnumSet.of(DepartmentField.DEPARTMENT_ID));
+        assertEquals(1, views.size());
+        assertEquals(Map.of("departmentId", department.getDepartmentId()), views.get(0).getFields());
+    }
+
+    //prefix, substring and typo - the qa database may have other matches, so only this department is looked for
+    @Test
+    public void whenSearchDepartments_thenMatchPrefixSubstringAndTypo() {
+        Department searched = Department.builder()
+                .departmentName("Xylographics")
+                .departmentAddress("Quintessence Avenue")
+                .departmentCode("XG-901")
+                .build();
+        entityManager.persist(searched);
+        entityManager.flush();
+
+        assertEquals(searched.getDepartmentId(), search("xylo").get(0).getDepartmentId());
+        assertTrue(search("graphic").contains(searched));
+        assertTrue(search("xg-90").contains(searched));
+        assertTrue(search("quintesence").contains(searched));
+        assertFalse(search("quixotic").contains(searched));
+    }
+
+    //a term read from the trigram index and a common term (id order walk) get the same candidates
+    @Test
+    public void whenSearchDepartmentsAsCommonTerm_thenSameResults() {
+        for(String term : List.of("first", "fist street", "street")) {
+            assertEquals(search(term, 10000), search(term, 1), term);
+        }
+    }
+
+    private List<Department> search(String term) {
+        return search(term, 10000);
+    }
+
+    private List<Department> search(String term, int commonMatches) {
+        return departmentRepository.searchDepartments(term, "%" + term + "%", term + "%", 1000, commonMatches, 20, 0);
+    }
+
+}
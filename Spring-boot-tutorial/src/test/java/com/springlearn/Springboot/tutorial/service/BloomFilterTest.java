@@ -0,0 +1,52 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    public void whenKeysPut_thenAllOfThemMightBeContained() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for(long id = 1; id <= 10000; id++) {
+            filter.put(id);
+        }
+        filter.put(BloomFilter.key("finance"));
+
+        for(long id = 1; id <= 10000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+        assertTrue(filter.mightContain(BloomFilter.key("finance")));
+        assertEquals(10001, filter.getInsertions());
+    }
+
+    //filled up to the expected insertions, about 1% of the keys that were never put pass
+    @Test
+    public void whenFilledToExpectedInsertions_thenFalsePositiveRateIsAsConfigured() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for(long id = 1; id <= 10000; id++) {
+            filter.put(id);
+        }
+
+        int falsePositives = 0;
+        for(long id = 1_000_001; id <= 1_100_000; id++) {
+            if(filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 1500, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.estimatedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    public void whenEmpty_thenNothingMightBeContained() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+
+        assertFalse(filter.mightContain(1L));
+        assertFalse(filter.mightContain(BloomFilter.key("finance")));
+        assertEquals(0.0, filter.estimatedFalsePositiveRate());
+    }
+
+}
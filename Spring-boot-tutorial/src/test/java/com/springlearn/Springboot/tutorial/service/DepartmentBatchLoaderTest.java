@@ -0,0 +1,113 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import com.springlearn.Springboot.tutorial.config.MicroBatchProperties;
+import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartmentBatchLoaderTest {
+
+    private static final int CALLERS = 4;
+
+    private DepartmentRepository departmentRepository;
+    private MeterRegistry meterRegistry;
+    private DepartmentBatchLoader loader;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        departmentRepository = Mockito.mock(DepartmentRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(CALLERS);
+
+        //a long window - the batch is sent once all the callers have joined it
+        MicroBatchProperties properties = new MicroBatchProperties();
+        properties.setEnabled(true);
+        properties.setWindowMicros(TimeUnit.SECONDS.toMicros(5));
+        properties.setMaxBatchSize(CALLERS);
+
+        loader = new DepartmentBatchLoader();
+        ReflectionTestUtils.setField(loader, "departmentRepository", departmentRepository);
+        ReflectionTestUtils.setField(loader, "properties", properties);
+        ReflectionTestUtils.setField(loader, "meterRegistry", meterRegistry);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(loader, "transactionManager", transactionManager);
+        loader.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenConcurrentLookupsOfDifferentIds_thenOneQueryAnswersEveryCaller() throws Exception {
+        //id 4 does not exist
+        Mockito.when(departmentRepository.findAllById(Mockito.any())).thenReturn(List.of(
+                department(1L), department(2L), department(3L)));
+
+        List<Future<Optional<Department>>> results = loadConcurrently(1L, 2L, 3L, 4L);
+
+        for(int i = 0; i < 3; i++) {
+            assertEquals(i + 1L, results.get(i).get(5, TimeUnit.SECONDS).get().getDepartmentId());
+        }
+        assertFalse(results.get(3).get(5, TimeUnit.SECONDS).isPresent());
+
+        ArgumentCaptor<Iterable<Long>> ids = ArgumentCaptor.forClass(Iterable.class);
+        Mockito.verify(departmentRepository, Mockito.times(1)).findAllById(ids.capture());
+        Set<Long> queried = new HashSet<>();
+        ids.getValue().forEach(queried::add);
+        assertEquals(Set.of(1L, 2L, 3L, 4L), queried);
+        assertEquals(CALLERS, meterRegistry.get("department.microbatch.size").summary().totalAmount());
+    }
+
+    @Test
+    public void whenQueryFails_thenEveryCallerGetsTheException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("database down");
+        Mockito.when(departmentRepository.findAllById(Mockito.any())).thenThrow(failure);
+
+        for(Future<Optional<Department>> result : loadConcurrently(1L, 2L, 3L, 4L)) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, exception.getCause());
+        }
+        Mockito.verify(departmentRepository, Mockito.times(1)).findAllById(Mockito.any());
+    }
+
+    private List<Future<Optional<Department>>> loadConcurrently(Long... departmentIds) {
+        List<Future<Optional<Department>>> results = new ArrayList<>();
+        for(Long departmentId : departmentIds) {
+            results.add(executor.submit(() -> loader.load(departmentId)));
+        }
+        return results;
+    }
+
+    private static Department department(Long departmentId) {
+        return Department.builder().departmentId(departmentId).departmentName("D" + departmentId).build();
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//the filter against the qa database - a department inserted past the service (another node, a script)
+//the polls are only run by the test, and a stale filter is not rebuilt on its own
+@SpringBootTest(properties = {
+        "department-filter.change-poll-interval-millis=3600000",
+        "department-filter.min-rebuild-interval-millis=3600000"})
+class DepartmentExistenceFilterTest {
+
+    private static final String NAME = "Behindthebackdepartment";
+
+    @Autowired
+    private DepartmentExistenceFilter departmentExistenceFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from department where department_name = ?", NAME);
+    }
+
+    @Test
+    public void whenInsertedPastTheService_thenEveryKeyPassesUntilRebuilt() throws InterruptedException {
+        departmentExistenceFilter.rebuild();
+
+        Long departmentId = jdbcTemplate.queryForObject("insert into department " +
+                        "(department_id, department_name, department_address, department_code) " +
+                        "values (nextval('department_seq'), ?, 'Side Street', 'BB-001') returning department_id",
+                Long.class, NAME);
+        //not in the filters yet (both a false positive for the id and for the name is 1 in 10000)
+        assertFalse(departmentExistenceFilter.mightContainId(departmentId)
+                && departmentExistenceFilter.mightContainName(NAME));
+
+        //the statistics collector gets the insert within half a second
+        long deadline = System.currentTimeMillis() + 5000;
+        while(!stale() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+            departmentExistenceFilter.pollChanges();
+        }
+        assertTrue(stale());
+        assertTrue(departmentExistenceFilter.mightContainId(departmentId));
+        assertTrue(departmentExistenceFilter.mightContainName(NAME));
+
+        departmentExistenceFilter.rebuild();
+        assertFalse(stale());
+        assertTrue(departmentExistenceFilter.mightContainId(departmentId));
+        assertTrue(departmentExistenceFilter.mightContainName(NAME));
+    }
+
+    private boolean stale() {
+        Map<String, Object> statistics = departmentExistenceFilter.statistics();
+        return Objects.equals(Boolean.TRUE, statistics.get("stale"));
+    }
+
+}
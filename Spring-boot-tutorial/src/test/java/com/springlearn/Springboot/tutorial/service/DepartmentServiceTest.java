@@ -1,9 +1,21 @@
 package com.springlearn.Springboot.tutorial.service;
 
+import com.springlearn.Springboot.tutorial.config.CacheConfig;
+import com.springlearn.Springboot.tutorial.config.DepartmentMetricsAspect;
 import com.springlearn.Springboot.tutorial.entity.Department;
+import com.springlearn.Springboot.tutorial.entity.DepartmentField;
+import com.springlearn.Springboot.tutorial.entity.DepartmentMultiGet;
+import com.springlearn.Springboot.tutorial.entity.DepartmentPage;
+import com.springlearn.Springboot.tutorial.entity.DepartmentSearchResult;
+import com.springlearn.Springboot.tutorial.entity.DepartmentView;
 import com.springlearn.Springboot.tutorial.entity.UpdatableDepartment;
 import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import com.springlearn.Springboot.tutorial.error.DepartmentVersionMismatchException;
+import com.springlearn.Springboot.tutorial.error.InvalidCursorException;
+import com.springlearn.Springboot.tutorial.error.SearchPageOutOfRangeException;
 import com.springlearn.Springboot.tutorial.repository.DepartmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -12,10 +24,22 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,11 +55,26 @@ class DepartmentServiceTest {
     @MockBean
     private DepartmentRepository departmentRepository;
 
+    //every id and name passes unless a test says otherwise - the filter itself is covered by BloomFilterTest
+    @MockBean
+    private DepartmentExistenceFilter departmentExistenceFilter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Department department;
 
     //@BeforeEach - this method will be call for each test case
     @BeforeEach
     void setUp() {
+        //the spring context (and its caches) is shared by all test cases - start every test with empty caches
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        Mockito.when(departmentExistenceFilter.mightContainId(Mockito.any())).thenReturn(true);
+        Mockito.when(departmentExistenceFilter.mightContainName(Mockito.any())).thenReturn(true);
+
         department = Department.builder()
                 .departmentName("IT")
                 .departmentAddress("3rd Cross, First Street")
@@ -46,12 +85,39 @@ class DepartmentServiceTest {
 
     @Test
     public void shouldSavedDepartmentSuccessfully() {
+        //save only creates - the id of the request is dropped and the database assigns a new one
+        Department saved = Department.builder()
+                .departmentName(department.getDepartmentName())
+                .departmentAddress(department.getDepartmentAddress())
+                .departmentCode(department.getDepartmentCode())
+                .departmentId(2L)
+                .build();
         Mockito.when(departmentRepository.save(department))
-                .thenReturn(department);
+                .thenReturn(saved);
 
         Department found = departmentService.saveDepartment(department);
         log.info(found.toString());
         assertNotNull(found);
+        assertNull(department.getDepartmentId());
+    }
+
+    @Test
+    public void whenSaveDepartments_thenSaveInBatchesAndIgnoreClientIds() {
+        List<Department> departments = new ArrayList<>();
+        for(int i = 0; i < 120; i++) {
+            departments.add(Department.builder().departmentId(1000L + i).departmentName("CS")
+                    .departmentAddress("Street").departmentCode("CS-001").build());
+        }
+        Mockito.when(departmentRepository.saveAll(Mockito.anyIterable()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Department> saved = departmentService.saveDepartments(departments);
+
+        //batch size 50 -> 50 + 50 + 20
+        assertEquals(120, saved.size());
+        Mockito.verify(departmentRepository, Mockito.times(3)).saveAll(Mockito.anyIterable());
+        Mockito.verify(departmentRepository, Mockito.times(3)).flush();
+        assertNull(saved.get(0).getDepartmentId());
     }
 
     @Test
@@ -69,21 +135,101 @@ class DepartmentServiceTest {
         assertEquals(foundAll, departmentList);
     }
 
+    @Test
+    public void whenMoreRowsThanPageSize_thenReturnNextCursorAndSeekFromIt() {
+        Department departmentSecond = Department.builder().departmentId(2L).departmentName("CS").departmentAddress(
+                "Second Crossroads, Third Street").departmentCode("CS-022").build();
+        List<Department> departmentList = new ArrayList<>();
+        departmentList.add(department);
+        departmentList.add(departmentSecond);
+
+        //page size 1 -> the repository is asked for 2 rows, the second one only tells there is a next page
+        Mockito.when(departmentRepository.findAllByOrderByDepartmentIdAsc(Mockito.any(Pageable.class)))
+                .thenReturn(departmentList);
+
+        DepartmentPage firstPage = departmentService.fetchDepartmentPage(1, "departmentId", null, false);
+        assertEquals(1, firstPage.getContent().size());
+        assertNotNull(firstPage.getNextCursor());
+        assertNull(firstPage.getApproximateTotal());
+
+        departmentService.fetchDepartmentPage(1, "departmentId", firstPage.getNextCursor(), false);
+        Mockito.verify(departmentRepository, Mockito.times(1))
+                .findByDepartmentIdGreaterThanOrderByDepartmentIdAsc(Mockito.eq(1L), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void whenLastPage_thenReturnNoNextCursor() {
+        List<Department> departmentList = new ArrayList<>();
+        departmentList.add(department);
+
+        Mockito.when(departmentRepository.findAllByOrderByDepartmentNameAscDepartmentIdAsc(Mockito.any(Pageable.class)))
+                .thenReturn(departmentList);
+        Mockito.when(departmentRepository.estimateDepartmentCount()).thenReturn(1L);
+
+        DepartmentPage page = departmentService.fetchDepartmentPage(10, "departmentName", null, true);
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+        assertEquals(1L, page.getApproximateTotal());
+    }
+
+    @Test
+    public void whenInvalidCursor_thenThrowInvalidCursorException() {
+        assertThrows(InvalidCursorException.class, () -> {
+            departmentService.fetchDepartmentPage(10, "departmentId", "not-a-cursor", false);
+        });
+    }
+
+    @Test
+    public void whenExport_thenPassEveryDepartmentToConsumer() {
+        Department departmentSecond = Department.builder().departmentId(2L).departmentName("CS").departmentAddress(
+                "Second Crossroads, Third Street").departmentCode("CS-022").build();
+        Mockito.when(departmentRepository.streamAll())
+                .thenReturn(Stream.of(department, departmentSecond));
+
+        List<Department> exported = new ArrayList<>();
+        departmentService.exportDepartments(exported::add);
+
+        assertEquals(2, exported.size());
+        assertEquals(departmentSecond, exported.get(1));
+    }
+
     @Test
     public void whenUpdateSuccessfully_thenReturnUpdatedDepartment() throws DepartmentNotFoundException {
-        Mockito.when(departmentRepository.findById(1L))
-                .thenReturn(Optional.of(department));
+        Department updated = Department.builder()
+                .departmentName("CS")
+                .departmentAddress(department.getDepartmentAddress())
+                .departmentCode("CS-001")
+                .departmentId(1L)
+                .build();
+
+        //only the given fields are passed on, the address is left out (null)
+        Mockito.when(departmentRepository.updateDepartmentFields(1L, null, "CS", null, "CS-001"))
+                .thenReturn(Optional.of(updated));
 
         UpdatableDepartment updateDepartment = UpdatableDepartment.builder()
                 .departmentName("CS")
+                .departmentAddress("")
                 .departmentCode("CS-001")
                 .build();
 
-        Mockito.when(departmentRepository.save(department))
-                .thenReturn(department);
-
         Department found = departmentService.updateDepartment(department.getDepartmentId(), updateDepartment);
         assertEquals("CS", found.getDepartmentName());
+        Mockito.verify(departmentRepository, Mockito.never()).findById(Mockito.anyLong());
+        Mockito.verify(departmentRepository, Mockito.never()).save(Mockito.any(Department.class));
+    }
+
+    @Test
+    public void whenStaleVersionFromUpdate_thenThrowDepartmentVersionMismatchException() {
+        Mockito.when(departmentRepository.updateDepartmentFields(1L, 3L, "CS", null, null))
+                .thenReturn(Optional.empty());
+        Mockito.when(departmentRepository.existsById(1L)).thenReturn(true);
+
+        UpdatableDepartment updateDepartment = UpdatableDepartment.builder()
+                .departmentName("CS")
+                .build();
+
+        assertThrows(DepartmentVersionMismatchException.class,
+                () -> departmentService.updateDepartment(1L, updateDepartment, 3L));
     }
 
     @Test
@@ -120,10 +266,54 @@ class DepartmentServiceTest {
          */
 
         //verify the number of times the method is called
-        Mockito.when(departmentRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(department));
-        Mockito.doNothing().when(departmentRepository).deleteById(Mockito.anyLong());
+        //one DELETE statement, the existence check comes from the deleted row count - no findById
+        Mockito.when(departmentRepository.deleteDepartment(Mockito.anyLong())).thenReturn(1);
         departmentService.deleteDepartmentById(1L);
-        Mockito.verify(departmentRepository, Mockito.times(1)).deleteById(1L);
+        Mockito.verify(departmentRepository, Mockito.times(1)).deleteDepartment(1L);
+        Mockito.verify(departmentRepository, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    public void whenDeleteDepartmentsByIds_thenDeleteDistinctIdsInOneCall() {
+        Mockito.when(departmentRepository.deleteDepartments(Mockito.anyCollection())).thenReturn(2);
+
+        int deleted = departmentService.deleteDepartmentsByIds(Arrays.asList(1L, 2L, 2L));
+
+        assertEquals(2, deleted);
+        Mockito.verify(departmentRepository, Mockito.times(1))
+                .deleteDepartments(new HashSet<>(Arrays.asList(1L, 2L)));
+    }
+
+    //cached ids and ids the existence filter does not know are not queried, the rest in one IN query
+    @Test
+    public void whenFetchDepartmentsByIds_thenQueryOnlyUncachedIdsAndReportMissing() throws DepartmentNotFoundException {
+        Department other = Department.builder().departmentId(2L).departmentName("HR").build();
+        Mockito.when(departmentRepository.findById(1L)).thenReturn(Optional.of(department));
+        Mockito.when(departmentRepository.findAllById(Arrays.asList(3L, 2L))).thenReturn(Arrays.asList(other));
+        Mockito.when(departmentExistenceFilter.mightContainId(4L)).thenReturn(false);
+        departmentService.fetchDepartmentById(1L);
+
+        DepartmentMultiGet result = departmentService.fetchDepartmentsByIds(Arrays.asList(3L, 1L, 2L, 4L, 1L));
+
+        assertEquals(Arrays.asList(department, other), result.getDepartments());
+        assertEquals(Arrays.asList(3L, 4L), result.getMissingIds());
+        Mockito.verify(departmentRepository, Mockito.times(1)).findAllById(Arrays.asList(3L, 2L));
+        assertEquals(other, cacheManager.getCache(CacheConfig.DEPARTMENTS).get(2L, Department.class));
+    }
+
+    //the departments that go into the cache are read in a read-write transaction - read only ones may go to a replica
+    @Test
+    public void whenFetchDepartmentsByIds_thenReadCacheMissesOutsideReadOnlyTransaction() {
+        Mockito.when(departmentRepository.findAllById(Arrays.asList(1L))).thenAnswer(invocation -> {
+            assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+            assertFalse(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            return Arrays.asList(department);
+        });
+
+        DepartmentMultiGet result = departmentService.fetchDepartmentsByIds(Arrays.asList(1L));
+
+        assertEquals(Arrays.asList(department), result.getDepartments());
+        Mockito.verify(departmentRepository, Mockito.times(1)).findAllById(Arrays.asList(1L));
     }
 
     @Test
@@ -195,5 +385,213 @@ class DepartmentServiceTest {
         assertTrue(actualMessage.contains(expectedMessage));
     }
 
+    //not in the existence filter -> not found without a query
+    @Test
+    public void whenDepartmentIdNotInExistenceFilter_thenThrowWithoutQuery() {
+        Mockito.when(departmentExistenceFilter.mightContainId(7L)).thenReturn(false);
+        Mockito.when(departmentExistenceFilter.mightContainName("unknown")).thenReturn(false);
+
+        assertThrows(DepartmentNotFoundException.class, () -> departmentService.fetchDepartmentById(7L));
+        assertThrows(DepartmentNotFoundException.class, () -> departmentService.fetchOneDepartmentByName("unknown"));
+        Mockito.verify(departmentRepository, Mockito.never()).findById(Mockito.any());
+        Mockito.verify(departmentRepository, Mockito.never()).findByDepartmentName(Mockito.any());
+    }
+
+    //the repository is a mock here, only the service timer is recorded
+    @Test
+    public void whenFetchDepartmentById_thenTimeByOutcome() throws DepartmentNotFoundException {
+        Mockito.when(departmentRepository.findById(1L))
+                .thenReturn(Optional.of(department));
+        long found = fetchDepartmentByIdCount("found");
+        long notFound = fetchDepartmentByIdCount("not-found");
+
+        departmentService.fetchDepartmentById(1L);
+        assertThrows(DepartmentNotFoundException.class, () -> departmentService.fetchDepartmentById(5L));
+
+        assertEquals(found + 1, fetchDepartmentByIdCount("found"));
+        assertEquals(notFound + 1, fetchDepartmentByIdCount("not-found"));
+    }
+
+    private long fetchDepartmentByIdCount(String outcome) {
+        Timer timer = meterRegistry.find(DepartmentMetricsAspect.SERVICE_TIMER)
+                .tags("method", "fetchDepartmentById", "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    //nothing cached yet - concurrent lookups of the same id share one query
+    @Test
+    public void whenConcurrentFetchDepartmentById_thenRepositoryCalledOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(departmentRepository.findById(1L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(department);
+        });
+        double coalesced = coalescedCount();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Department>> results = new ArrayList<>();
+            for(int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> departmentService.fetchDepartmentById(1L)));
+            }
+            while(coalescedCount() < coalesced + 3) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            for(Future<Department> result : results) {
+                assertEquals(department, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Mockito.verify(departmentRepository, Mockito.times(1)).findById(1L);
+    }
+
+    private double coalescedCount() {
+        return meterRegistry.get("department.singleflight.coalesced")
+                .tags("name", "fetchDepartmentById")
+                .counter()
+                .count();
+    }
+
+    @Test
+    public void whenFetchDepartmentByIdTwice_thenRepositoryCalledOnce() throws DepartmentNotFoundException {
+        Mockito.when(departmentRepository.findById(1L))
+                .thenReturn(Optional.of(department));
+
+        departmentService.fetchDepartmentById(1L);
+        Department cached = departmentService.fetchDepartmentById(1L);
+
+        assertEquals(department, cached);
+        Mockito.verify(departmentRepository, Mockito.times(1)).findById(1L);
+    }
+
+    @Test
+    public void whenDepartmentDeleted_thenEvictFromCache() throws DepartmentNotFoundException {
+        Mockito.when(departmentRepository.findById(1L))
+                .thenReturn(Optional.of(department));
+        Mockito.when(departmentRepository.deleteDepartment(1L))
+                .thenReturn(1);
+        departmentService.fetchDepartmentById(1L);
+
+        departmentService.deleteDepartmentById(1L);
+        Mockito.when(departmentRepository.findById(1L))
+                .thenReturn(Optional.empty());
+
+        assertThrows(DepartmentNotFoundException.class, () -> departmentService.fetchDepartmentById(1L));
+    }
+
+    @Test
+    public void whenDepartmentUpdated_thenCacheHoldsUpdatedDepartment() throws DepartmentNotFoundException {
+        Department updated = Department.builder()
+                .departmentName(department.getDepartmentName())
+                .departmentAddress(department.getDepartmentAddress())
+                .departmentCode("IT-007")
+                .departmentId(1L)
+                .build();
+        Mockito.when(departmentRepository.findById(1L))
+                .thenReturn(Optional.of(department));
+        Mockito.when(departmentRepository.updateDepartmentFields(1L, null, null, null, "IT-007"))
+                .thenReturn(Optional.of(updated));
+        departmentService.fetchDepartmentById(1L);
+
+        departmentService.updateDepartment(1L, UpdatableDepartment.builder().departmentCode("IT-007").build());
+
+        assertEquals("IT-007", departmentService.fetchDepartmentById(1L).getDepartmentCode());
+        Mockito.verify(departmentRepository, Mockito.times(1)).findById(1L);
+    }
+
+    //a replica that has not got the update yet answers every read only transaction with the old row
+    //the reads that fill the caches must not see it - the update has evicted the by-name cache,
+    //and the by-id entry may expire (cleared here) before the replica catches up
+    @Test
+    public void whenReplicaBehindAfterUpdate_thenCachesKeepUpdatedDepartment() throws DepartmentNotFoundException {
+        Department old = Department.builder()
+                .departmentName("IT")
+                .departmentCode("IT-006")
+                .departmentId(1L)
+                .version(1L)
+                .build();
+        Department updated = Department.builder()
+                .departmentName("IT")
+                .departmentCode("IT-007")
+                .departmentId(1L)
+                .version(2L)
+                .build();
+        Mockito.when(departmentRepository.updateDepartmentFields(1L, null, null, null, "IT-007"))
+                .thenReturn(Optional.of(updated));
+        Mockito.when(departmentRepository.findById(1L))
+                .thenAnswer(invocation -> Optional.of(replicaOr(old, updated)));
+        Mockito.when(departmentRepository.findByDepartmentName("IT"))
+                .thenAnswer(invocation -> replicaOr(old, updated));
+        Mockito.when(departmentRepository.findVersionById(1L))
+                .thenAnswer(invocation -> Optional.of(replicaOr(old, updated).getVersion()));
+
+        departmentService.updateDepartment(1L, UpdatableDepartment.builder().departmentCode("IT-007").build());
+        cacheManager.getCache(CacheConfig.DEPARTMENTS).clear();
+
+        assertEquals(2L, departmentService.fetchDepartmentVersion(1L));
+        assertEquals(2L, departmentService.fetchDepartmentById(1L).getVersion());
+        assertEquals(2L, departmentService.fetchOneDepartmentByName("IT").getVersion());
+        assertEquals(2L, cacheManager.getCache(CacheConfig.DEPARTMENTS).get(1L, Department.class).getVersion());
+        assertEquals(2L, cacheManager.getCache(CacheConfig.DEPARTMENTS_BY_NAME).get("IT", Department.class).getVersion());
+    }
+
+    //read only transactions are routed to a replica (see ReplicaRoutingDataSource)
+    private static Department replicaOr(Department onReplica, Department onPrimary) {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? onReplica : onPrimary;
+    }
+
+    @Test
+    public void whenFieldsOfUncachedDepartment_thenReadOnlyThoseFields() throws DepartmentNotFoundException {
+        EnumSet<DepartmentField> fields = EnumSet.of(DepartmentField.DEPARTMENT_ID, DepartmentField.DEPARTMENT_NAME);
+        DepartmentView view = DepartmentView.of(department, fields);
+        Mockito.when(departmentRepository.findViewById(1L, fields))
+                .thenReturn(Optional.of(view));
+
+        assertEquals(view, departmentService.fetchDepartmentById(1L, fields));
+        Mockito.verify(departmentRepository, Mockito.never()).findById(Mockito.any());
+    }
+
+    //the cached department has every field, no query for the view
+    @Test
+    public void whenFieldsOfCachedDepartment_thenCutFromCacheWithoutQuery() throws DepartmentNotFoundException {
+        Mockito.when(departmentRepository.findById(1L))
+                .thenReturn(Optional.of(department));
+        departmentService.fetchDepartmentById(1L);
+
+        DepartmentView view = departmentService.fetchDepartmentById(1L, EnumSet.of(DepartmentField.DEPARTMENT_NAME));
+
+        assertEquals(1, view.getFields().size());
+        assertEquals("IT", view.getFields().get("departmentName"));
+        Mockito.verify(departmentRepository, Mockito.never()).findViewById(Mockito.any(), Mockito.any());
+    }
+
+    //one row more than the page size comes back -> hasNext, the wildcards of the query are escaped
+    @Test
+    public void whenSearchDepartments_thenLowerCaseEscapedTermAndOneRowMore() {
+        Mockito.when(departmentRepository.searchDepartments(Mockito.eq("it_%"), Mockito.eq("%it\\_\\%%"),
+                Mockito.eq("it\\_\\%%"), Mockito.anyInt(), Mockito.anyInt(), Mockito.eq(2), Mockito.eq(2)))
+                .thenReturn(List.of(department, department));
+
+        DepartmentSearchResult result = departmentService.searchDepartments(" IT_% ", 2, 1);
+
+        assertEquals(List.of(department), result.getContent());
+        assertTrue(result.isHasNext());
+        Mockito.verify(departmentRepository, Mockito.times(1)).setWordSimilarityThreshold("0.6");
+    }
+
+    //the last page ends at max-candidates (1000), the next one is rejected before any query
+    @Test
+    public void whenSearchPagePastCandidates_thenThrowSearchPageOutOfRangeException() {
+        departmentService.searchDepartments("engineering", 19, 50);
+
+        assertThrows(SearchPageOutOfRangeException.class, () -> {
+            departmentService.searchDepartments("engineering", 20, 50);
+        });
+        Mockito.verify(departmentRepository, Mockito.times(1)).setWordSimilarityThreshold("0.6");
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package com.springlearn.Springboot.tutorial.service;
+
+import com.springlearn.Springboot.tutorial.error.DepartmentNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private MeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private AtomicInteger calls;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(CALLERS);
+        calls = new AtomicInteger();
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void whenConcurrentCallsForSameKey_thenCallRunsOnceAndResultIsShared() throws Exception {
+        SingleFlight<Long, String, DepartmentNotFoundException> singleFlight = singleFlight(10000);
+
+        List<Future<String>> results = callConcurrently(singleFlight, () -> "IT");
+
+        for(Future<String> result : results) {
+            assertEquals("IT", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(CALLERS - 1, coalesced());
+    }
+
+    @Test
+    public void whenCallThrows_thenEveryCallerGetsTheException() throws Exception {
+        SingleFlight<Long, String, DepartmentNotFoundException> singleFlight = singleFlight(10000);
+
+        List<Future<String>> results = callConcurrently(singleFlight, () -> {
+            throw DepartmentNotFoundException.notFound();
+        });
+
+        for(Future<String> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(DepartmentNotFoundException.notFound(), exception.getCause());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    //followers stop waiting after the timeout and run the call themselves
+    @Test
+    public void whenCallTakesLongerThanTimeout_thenFollowersRunTheirOwnCall() throws Exception {
+        SingleFlight<Long, String, DepartmentNotFoundException> singleFlight = singleFlight(50);
+
+        List<Future<String>> results = callConcurrently(singleFlight, () -> "IT");
+
+        for(Future<String> result : results) {
+            assertEquals("IT", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(CALLERS, calls.get());
+        assertEquals(CALLERS - 1, meterRegistry.get("department.singleflight.timeouts").counter().count());
+    }
+
+    private SingleFlight<Long, String, DepartmentNotFoundException> singleFlight(long timeoutMillis) {
+        return new SingleFlight<>("test", DepartmentNotFoundException.class, timeoutMillis, meterRegistry);
+    }
+
+    //the first call blocks until every other caller has joined it (or timed out), then returns the result
+    private List<Future<String>> callConcurrently(SingleFlight<Long, String, DepartmentNotFoundException> singleFlight,
+                                                  SingleFlight.Call<String, DepartmentNotFoundException> result)
+            throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+            calls.incrementAndGet();
+            awaitRelease();
+            return result.call();
+        })));
+        while(calls.get() == 0) {
+            Thread.sleep(1);
+        }
+        for(int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                calls.incrementAndGet();
+                return result.call();
+            })));
+        }
+        while(coalesced() < CALLERS - 1) {
+            Thread.sleep(1);
+        }
+        //with a short timeout, let the followers give up before the first call returns
+        Thread.sleep(200);
+        release.countDown();
+        return results;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("department.singleflight.coalesced").counter().count();
+    }
+
+}